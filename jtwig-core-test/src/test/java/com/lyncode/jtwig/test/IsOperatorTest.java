@@ -47,6 +47,14 @@ public class IsOperatorTest extends AbstractJtwigTest {
         JtwigTemplate template = new JtwigTemplate("{% if (variable is not defined) %}Hi{% endif %}");
         assertThat(template.output(context), is(equalTo("Hi")));
     }
+
+    @Test
+    public void isDefinedOnMissingProperty () throws Exception {
+        context.withModelAttribute("value", "text");
+        JtwigTemplate template = new JtwigTemplate("{% if ((value.missing) is not defined) %}Hi{% endif %}{{ value.missing | default('!') }}");
+        assertThat(template.output(context), is(equalTo("Hi!")));
+    }
+
     @Test
     public void isEvenFunction () throws Exception {
         JtwigTemplate template = new JtwigTemplate("{% if (1 is not even) %}Hi{% endif %}");
@@ -16,21 +16,45 @@
 
 package com.lyncode.jtwig;
 
+import com.lyncode.jtwig.exception.UndefinedException;
 import com.lyncode.jtwig.functions.JtwigFunction;
-import com.lyncode.jtwig.functions.exceptions.FunctionNotFoundException;
 import com.lyncode.jtwig.functions.repository.AbstractFunctionRepository;
 import com.lyncode.jtwig.functions.repository.DefaultFunctionRepository;
+import com.lyncode.jtwig.functions.repository.OverlayFunctionRepository;
+import com.lyncode.jtwig.property.PropertyResolvers;
+import com.lyncode.jtwig.tree.helper.VariableScope;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class JtwigContext {
 
     private static final String MODEL = "model";
+    private static final Object UNSET = new Object();
+    private static final Object[] NO_LOCALS = new Object[0];
+    private static final Object[][] NO_SCOPES = new Object[0][];
+    private static final AbstractFunctionRepository DEFAULT_FUNCTIONS = new DefaultFunctionRepository().freeze();
+    private static final int MAXIMUM_MEMOIZED_CALLS = 1000;
 
     public static JtwigContext context () {
         return new JtwigContext();
     }
 
+    public static AbstractFunctionRepository defaultFunctions () {
+        return DEFAULT_FUNCTIONS;
+    }
+
     private AbstractFunctionRepository functionRepository;
+    private boolean ownFunctionRepository = false;
     private JtwigModelMap modelMap;
+    private Map<String, Object> globals = Collections.emptyMap();
+    private PropertyResolvers propertyResolvers = PropertyResolvers.defaults();
+    private Object[] locals = NO_LOCALS;
+    private Object[][] scopes = NO_SCOPES;
+    private int depth = 0;
+    private Map<Object, Object> memo;
 
     public JtwigContext(JtwigModelMap modelMap, AbstractFunctionRepository functionRepository) {
         this.functionRepository = functionRepository;
@@ -38,37 +62,164 @@ public class JtwigContext {
     }
 
     public JtwigContext(JtwigModelMap modelMap) {
-        this.functionRepository = new DefaultFunctionRepository();
-        this.modelMap = modelMap;
+        this(modelMap, DEFAULT_FUNCTIONS);
     }
 
     public JtwigContext() {
-        this.functionRepository = new DefaultFunctionRepository();
-        this.modelMap = new JtwigModelMap();
+        this(new JtwigModelMap());
     }
 
+    /**
+     * Adds a function to this context only, the shared repository given to
+     * the constructor is not changed.
+     */
     public JtwigContext withFunction(String name, JtwigFunction function) {
+        if (!ownFunctionRepository) {
+            this.functionRepository = new OverlayFunctionRepository(functionRepository);
+            this.ownFunctionRepository = true;
+        }
         this.functionRepository.add(function, name);
         return this;
     }
 
+    /**
+     * Variables visible to every template, read when the model has no such
+     * key. The map is not copied, so it can be shared between contexts, but
+     * must not change while rendering.
+     */
+    public JtwigContext withGlobals(Map<String, Object> globals) {
+        this.globals = globals;
+        return this;
+    }
+
     public JtwigContext withModelAttribute(String key, Object value) {
         this.modelMap.add(key, value);
         return this;
     }
 
-    public JtwigFunction function(String name) throws FunctionNotFoundException {
-        return functionRepository.retrieve(name);
+    public JtwigContext withPropertyResolvers(PropertyResolvers propertyResolvers) {
+        this.propertyResolvers = propertyResolvers;
+        return this;
+    }
+
+    public PropertyResolvers getPropertyResolvers() {
+        return propertyResolvers;
+    }
+
+    public JtwigFunction function(String name) throws UndefinedException {
+        JtwigFunction function = functionRepository.find(name);
+        if (function == null)
+            throw new UndefinedException("Function " + name + " not found");
+        return function;
+    }
+
+    /**
+     * Results of memoized pure function calls made by the current render,
+     * the oldest ones are dropped once the maximum size is reached.
+     */
+    public Map<Object, Object> memo() {
+        if (memo == null) {
+            memo = new LinkedHashMap<Object, Object>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                    return size() > MAXIMUM_MEMOIZED_CALLS;
+                }
+            };
+        }
+        return memo;
+    }
+
+    /**
+     * Gives the render about to start its own memo, returning the memo of the
+     * render it is nested in so {@link #endRender} can restore it.
+     */
+    Map<Object, Object> startRender() {
+        Map<Object, Object> enclosing = memo;
+        memo = null;
+        return enclosing;
+    }
+
+    void endRender(Map<Object, Object> enclosing) {
+        memo = enclosing;
     }
 
     public Object map(String key) {
         if (MODEL.equals(key))
             return modelMap;
-        else
-            return modelMap.get(key);
+        Object value = modelMap.get(key);
+        if (value == null && !globals.isEmpty() && !modelMap.containsKey(key))
+            return globals.get(key);
+        return value;
     }
 
     public void set(String key, Object value) {
         modelMap.add(key, value);
     }
+
+    /**
+     * Reads a template local variable, falling back to the model while the
+     * template has not assigned it yet.
+     */
+    public Object local(int slot, String key) {
+        if (slot < locals.length && locals[slot] != UNSET)
+            return locals[slot];
+        return map(key);
+    }
+
+    public void setLocal(int slot, Object value) {
+        if (slot >= locals.length) {
+            int length = locals.length;
+            locals = Arrays.copyOf(locals, slot + 1);
+            Arrays.fill(locals, length, locals.length, UNSET);
+        }
+        locals[slot] = value;
+    }
+
+    /**
+     * Starts a frame with the given number of local slots, all unassigned.
+     *
+     * @return the current frame, to be given back to {@link #exitFrame(Object[])}
+     */
+    public Object[] enterFrame(int size) {
+        Object[] previous = locals;
+        locals = new Object[size];
+        Arrays.fill(locals, UNSET);
+        return previous;
+    }
+
+    public void exitFrame(Object[] previous) {
+        locals = previous;
+    }
+
+    /**
+     * Remembers the slots of the given scope. The buffers holding them are
+     * kept by this context and reused by the following scopes.
+     */
+    public void enterScope(VariableScope scope) {
+        if (depth == scopes.length)
+            scopes = Arrays.copyOf(scopes, depth * 2 + 4);
+        Object[] saved = scopes[depth];
+        if (saved == null || saved.length < scope.size()) {
+            saved = new Object[scope.size()];
+            scopes[depth] = saved;
+        }
+        for (int i = 0; i < scope.size(); i++) {
+            int slot = scope.getSlot(i);
+            saved[i] = slot < locals.length ? locals[slot] : UNSET;
+        }
+        depth++;
+    }
+
+    private boolean isDefined(String key) {
+        return modelMap.containsKey(key) || globals.containsKey(key);
+    }
+
+    public void exitScope(VariableScope scope) {
+        Object[] saved = scopes[--depth];
+        for (int i = 0; i < scope.size(); i++) {
+            if (scope.isRestored(i) || (saved[i] == UNSET && !isDefined(scope.getName(i))))
+                setLocal(scope.getSlot(i), saved[i]);
+            saved[i] = null;
+        }
+    }
 }
@@ -16,48 +16,110 @@
 
 package com.lyncode.jtwig;
 
+import com.lyncode.jtwig.bytecode.BytecodeCompiler;
+import com.lyncode.jtwig.cache.CompiledTemplateCache;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.compile.ContentOptimizer;
+import com.lyncode.jtwig.compile.LocalSlots;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.ParseException;
 import com.lyncode.jtwig.exception.RenderException;
 import com.lyncode.jtwig.parser.JtwigParser;
+import com.lyncode.jtwig.render.AppendableRenderStream;
+import com.lyncode.jtwig.render.OutputStreamRenderStream;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.resource.FileJtwigResource;
 import com.lyncode.jtwig.resource.JtwigResource;
 import com.lyncode.jtwig.resource.StringJtwigResource;
 import com.lyncode.jtwig.tree.api.Content;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
 
 public class JtwigTemplate {
+    private static final JtwigConfiguration DEFAULT_CONFIGURATION = new JtwigConfiguration();
+
     private JtwigResource resource;
+    private JtwigConfiguration configuration;
 
-    public JtwigTemplate(JtwigResource resource) {
+    public JtwigTemplate(JtwigResource resource, JtwigConfiguration configuration) {
         this.resource = resource;
+        this.configuration = configuration;
+    }
+
+    public JtwigTemplate(JtwigResource resource) {
+        this(resource, DEFAULT_CONFIGURATION);
     }
 
     public JtwigTemplate (String content) {
-        this.resource = new StringJtwigResource(content);
+        this(new StringJtwigResource(content));
     }
 
     public JtwigTemplate (File file) {
-        this.resource = new FileJtwigResource(file);
+        this(new FileJtwigResource(file));
     }
 
     public void output (OutputStream outputStream, JtwigContext context) throws ParseException, CompileException, RenderException {
-        JtwigParser.parse(resource)
-                .compile(resource)
-                .render(outputStream, context);
+        output(new OutputStreamRenderStream(outputStream, configuration.getOutputCharset()), context);
+    }
+
+    public void output (Appendable appendable, JtwigContext context) throws ParseException, CompileException, RenderException {
+        output(new AppendableRenderStream(appendable), context);
     }
 
     public String output (JtwigContext context) throws ParseException, CompileException, RenderException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        output(outputStream, context);
-        return outputStream.toString();
+        StringBuilder builder = new StringBuilder();
+        output(builder, context);
+        return builder.toString();
+    }
+
+    public void output (RenderStream renderStream, JtwigContext context) throws ParseException, CompileException, RenderException {
+        Content content = compile();
+        Map<Object, Object> enclosingMemo = context.startRender();
+        boolean rendered = false;
+        try {
+            content.render(renderStream, context);
+            rendered = true;
+        } finally {
+            context.endRender(enclosingMemo);
+            // a failed render still writes what it rendered so far, and its failure is the one reported
+            try {
+                renderStream.flush();
+            } catch (IOException e) {
+                if (rendered)
+                    throw new RenderException(e);
+            }
+        }
     }
 
 
     public Content compile() throws ParseException, CompileException {
-        return JtwigParser.parse(resource).compile(resource);
+        return configuration.getTemplateCache().get(resource, configuration.getTemplateRefreshInterval(), new CompiledTemplateCache.Loader() {
+            @Override
+            public Content load(JtwigResource resource, List<JtwigResource> dependencies) throws ParseException, CompileException {
+                Content content = configuration.getPrecompiledTemplates().lookup(resource, configuration);
+                if (content != null) {
+                    // binds and folds function calls with the runtime repository
+                    content = content.compile(new CompileContext(resource, configuration));
+                } else {
+                    CompileContext compileContext = new CompileContext(resource, configuration);
+                    content = JtwigParser.parse(resource, configuration.getSourceCharset()).compile(compileContext);
+                    content = new ContentOptimizer(configuration.getOutputCharset()).optimize(content);
+                    dependencies.addAll(compileContext.getResources());
+                }
+                content = new LocalSlots().allocate(content);
+                if (configuration.isBytecodeCompilation())
+                    return new BytecodeCompiler().compile(content);
+                return content;
+            }
+        });
+    }
+
+    public void invalidate () {
+        configuration.getTemplateCache().invalidate(resource);
     }
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.bytecode;
+
+import com.lyncode.jtwig.tree.api.Content;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns a compiled content tree into a generated class, so rendering runs as
+ * straight-line code instead of walking the tree. Nodes without a bytecode
+ * translation are kept and rendered through the interpreter.
+ *
+ * Each generated class has its own class loader, so it can be collected as
+ * soon as the compiled template is evicted from the cache.
+ */
+public class BytecodeCompiler {
+    private static Logger log = LogManager.getLogger(BytecodeCompiler.class);
+    private static final String PREFIX = "com.lyncode.jtwig.bytecode.GeneratedTemplate$";
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    public Content compile (Content content) {
+        String className = PREFIX + counter.incrementAndGet();
+        try {
+            ContentClassGenerator generator = new ContentClassGenerator(className.replace('.', '/'));
+            byte[] code = generator.generate(content);
+            Class<?> generated = new TemplateClassLoader(CompiledContent.class.getClassLoader()).define(className, code);
+            return (Content) generated.getConstructor(Object[].class).newInstance((Object) generator.getConstants());
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            log.warn("Unable to generate bytecode for template, falling back to the interpreter", e);
+            return content;
+        }
+    }
+
+    private static class TemplateClassLoader extends ClassLoader {
+        public TemplateClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        public Class<?> define (String name, byte[] code) {
+            return defineClass(name, code, 0, code.length);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.bytecode;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.RenderException;
+import com.lyncode.jtwig.render.RenderStream;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.structural.Block;
+
+import java.io.IOException;
+
+/**
+ * Base class of the templates generated by {@link BytecodeCompiler}.
+ * Generated classes only implement {@link #doRender(RenderStream, JtwigContext)}.
+ */
+public abstract class CompiledContent implements Content {
+    @Override
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+        try {
+            doRender(renderStream, context);
+            return true;
+        } catch (IOException | CalculateException e) {
+            throw new RenderException(e);
+        }
+    }
+
+    protected abstract void doRender(RenderStream renderStream, JtwigContext context) throws IOException, CalculateException, RenderException;
+
+    @Override
+    public Content compile(CompileContext context) throws CompileException {
+        return this;
+    }
+
+    @Override
+    public boolean replace(Block expression) throws CompileException {
+        return false;
+    }
+}
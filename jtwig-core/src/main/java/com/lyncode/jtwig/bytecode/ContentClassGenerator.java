@@ -0,0 +1,461 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.bytecode;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.functions.util.ObjectIterator;
+import com.lyncode.jtwig.render.RenderStream;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.api.Writable;
+import com.lyncode.jtwig.tree.content.*;
+import com.lyncode.jtwig.tree.expressions.*;
+import com.lyncode.jtwig.tree.helper.StrictBinaryOperation;
+import com.lyncode.jtwig.tree.helper.VariableScope;
+import com.lyncode.jtwig.tree.structural.Block;
+import com.lyncode.jtwig.tree.tags.Verbatim;
+import com.lyncode.jtwig.util.BooleanOperations;
+import com.lyncode.jtwig.util.MathOperations;
+import com.lyncode.jtwig.util.RelationalOperations;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Emits the class for a single template. Constants the generated code needs
+ * (text, expressions and nodes rendered by the interpreter) are passed
+ * to its constructor and kept in final fields.
+ *
+ * Classes are emitted with the Java 5 format, which has no stack map frames,
+ * so the generator does not need to resolve the class hierarchy.
+ */
+class ContentClassGenerator {
+    private static final int THIS = 0;
+    private static final int OUTPUT = 1;
+    private static final int CONTEXT = 2;
+
+    private static final Map<Operator, String> BINARY = new EnumMap<>(Operator.class);
+    static {
+        BINARY.put(Operator.ADD, "sum");
+        BINARY.put(Operator.SUB, "sub");
+        BINARY.put(Operator.TIMES, "mul");
+        BINARY.put(Operator.DIV, "div");
+        BINARY.put(Operator.MOD, "mod");
+        BINARY.put(Operator.GT, "gt");
+        BINARY.put(Operator.GTE, "gte");
+        BINARY.put(Operator.LT, "lt");
+        BINARY.put(Operator.LTE, "lte");
+        BINARY.put(Operator.EQUAL, "eq");
+        BINARY.put(Operator.DIFF, "neq");
+        BINARY.put(Operator.AND, "and");
+        BINARY.put(Operator.OR, "or");
+    }
+
+    private final String className;
+    private final List<Object> constants = new ArrayList<>();
+    private final List<Class<?>> constantTypes = new ArrayList<>();
+    private MethodVisitor method;
+    private int nextLocal = CONTEXT + 1;
+
+    public ContentClassGenerator(String className) {
+        this.className = className;
+    }
+
+    public Object[] getConstants() {
+        return constants.toArray();
+    }
+
+    public byte[] generate (Content content) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, Type.getInternalName(CompiledContent.class), null);
+
+        method = writer.visitMethod(ACC_PROTECTED, "doRender", Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(RenderStream.class), Type.getType(JtwigContext.class)), null,
+                new String[]{"java/io/IOException", "com/lyncode/jtwig/exception/CalculateException", "com/lyncode/jtwig/exception/RenderException"});
+        method.visitCode();
+        content(content);
+        method.visitInsn(RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        for (int i = 0; i < constants.size(); i++)
+            writer.visitField(ACC_PRIVATE | ACC_FINAL, field(i), Type.getDescriptor(constantTypes.get(i)), null, null).visitEnd();
+        constructor(writer);
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private void constructor (ClassWriter writer) {
+        MethodVisitor init = writer.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(CompiledContent.class), "<init>", "()V");
+        for (int i = 0; i < constants.size(); i++) {
+            init.visitVarInsn(ALOAD, 0);
+            init.visitVarInsn(ALOAD, 1);
+            init.visitLdcInsn(i);
+            init.visitInsn(AALOAD);
+            init.visitTypeInsn(CHECKCAST, Type.getInternalName(constantTypes.get(i)));
+            init.visitFieldInsn(PUTFIELD, className, field(i), Type.getDescriptor(constantTypes.get(i)));
+        }
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+    }
+
+    private void content (Content content) {
+        if (content instanceof JtwigContent) {
+            for (Content child : ((JtwigContent) content).getContents())
+                content(child);
+        } else if (content instanceof StaticText) {
+            if (((StaticText) content).getText().isEmpty()) return;
+            method.visitVarInsn(ALOAD, OUTPUT);
+            loadConstant(content, StaticText.class);
+            invoke(INVOKEVIRTUAL, RenderStream.class, "writeStatic", RenderStream.class, StaticText.class);
+            method.visitInsn(POP);
+        } else if (content instanceof Text) {
+            text(((Text) content).getText());
+        } else if (content instanceof Verbatim) {
+            text(((Verbatim) content).getText().getText());
+        } else if (content instanceof Block) {
+            content(((Block) content).getContent());
+        } else if (content instanceof LocalFrame) {
+            localFrame((LocalFrame) content);
+        } else if (content instanceof Output) {
+            output((Expression) ((Output) content).getExpression());
+        } else if (content instanceof SetVariable) {
+            SetVariable setVariable = (SetVariable) content;
+            assign(setVariable.getName(), (Expression) setVariable.getAssignment());
+        } else if (content instanceof IfExpression) {
+            ifExpression((IfExpression) content);
+        } else if (content instanceof ScopedContent) {
+            scopedContent((ScopedContent) content);
+        } else if (content.getClass() == ForLoop.class) {
+            forLoop((ForLoop) content);
+        } else {
+            loadConstant(content, Content.class);
+            method.visitVarInsn(ALOAD, OUTPUT);
+            method.visitVarInsn(ALOAD, CONTEXT);
+            invoke(INVOKEINTERFACE, Content.class, "render", boolean.class, RenderStream.class, JtwigContext.class);
+            method.visitInsn(POP);
+        }
+    }
+
+    private void text (String text) {
+        if (text.isEmpty()) return;
+        method.visitVarInsn(ALOAD, OUTPUT);
+        loadConstant(text, String.class);
+        invoke(INVOKEVIRTUAL, RenderStream.class, "append", RenderStream.class, CharSequence.class);
+        method.visitInsn(POP);
+    }
+
+    private void output (Expression expression) {
+        if (expression instanceof Constant) {
+            text(String.valueOf(((Constant) expression).getValue()));
+            return;
+        }
+        if (expression instanceof AutoEscape) {
+            loadConstant(expression, AutoEscape.class);
+            method.visitVarInsn(ALOAD, OUTPUT);
+            expression(((AutoEscape) expression).getExpression());
+            invoke(INVOKEVIRTUAL, AutoEscape.class, "write", void.class, RenderStream.class, Object.class);
+            return;
+        }
+        if (expression instanceof Writable) {
+            loadConstant(expression, Writable.class);
+            method.visitVarInsn(ALOAD, OUTPUT);
+            method.visitVarInsn(ALOAD, CONTEXT);
+            invoke(INVOKEINTERFACE, Writable.class, "write", void.class, RenderStream.class, JtwigContext.class);
+            return;
+        }
+        method.visitVarInsn(ALOAD, OUTPUT);
+        expression(expression);
+        invoke(INVOKEVIRTUAL, RenderStream.class, "write", RenderStream.class, Object.class);
+        method.visitInsn(POP);
+    }
+
+    private void ifExpression (IfExpression ifExpression) {
+        Label end = new Label();
+        Label next = new Label();
+        condition(ifExpression.getConditionalExpression());
+        method.visitJumpInsn(IFEQ, next);
+        content(ifExpression.getContent());
+        method.visitJumpInsn(GOTO, end);
+        for (IfExpression.ElseIfExpression elseIf : ifExpression.getElseIfExpressions()) {
+            method.visitLabel(next);
+            next = new Label();
+            condition(elseIf.getCondition());
+            method.visitJumpInsn(IFEQ, next);
+            content(elseIf.getContent());
+            method.visitJumpInsn(GOTO, end);
+        }
+        method.visitLabel(next);
+        if (ifExpression.getElseExpression() != null)
+            content(ifExpression.getElseExpression().getContent());
+        method.visitLabel(end);
+    }
+
+    private void localFrame (final LocalFrame frame) {
+        final int previous = nextLocal++;
+        method.visitVarInsn(ALOAD, CONTEXT);
+        method.visitLdcInsn(frame.getSize());
+        invoke(INVOKEVIRTUAL, JtwigContext.class, "enterFrame", Object[].class, int.class);
+        method.visitVarInsn(ASTORE, previous);
+        guarded(new Emitter() {
+            @Override
+            public void emit() {
+                content(frame.getContent());
+            }
+        }, new Emitter() {
+            @Override
+            public void emit() {
+                exitFrame(previous);
+            }
+        });
+        nextLocal--;
+    }
+
+    private void scoped (final VariableScope scope, Emitter body) {
+        method.visitVarInsn(ALOAD, CONTEXT);
+        loadConstant(scope, VariableScope.class);
+        invoke(INVOKEVIRTUAL, JtwigContext.class, "enterScope", void.class, VariableScope.class);
+        guarded(body, new Emitter() {
+            @Override
+            public void emit() {
+                method.visitVarInsn(ALOAD, CONTEXT);
+                loadConstant(scope, VariableScope.class);
+                invoke(INVOKEVIRTUAL, JtwigContext.class, "exitScope", void.class, VariableScope.class);
+            }
+        });
+    }
+
+    private void guarded (Emitter body, Emitter cleanup) {
+        int exception = nextLocal++;
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        Label done = new Label();
+
+        method.visitTryCatchBlock(start, end, handler, null);
+        method.visitLabel(start);
+        body.emit();
+        method.visitLabel(end);
+        cleanup.emit();
+        method.visitJumpInsn(GOTO, done);
+
+        method.visitLabel(handler);
+        method.visitVarInsn(ASTORE, exception);
+        cleanup.emit();
+        method.visitVarInsn(ALOAD, exception);
+        method.visitInsn(ATHROW);
+        method.visitLabel(done);
+        nextLocal--;
+    }
+
+    private void exitFrame (int previous) {
+        method.visitVarInsn(ALOAD, CONTEXT);
+        method.visitVarInsn(ALOAD, previous);
+        invoke(INVOKEVIRTUAL, JtwigContext.class, "exitFrame", void.class, Object[].class);
+    }
+
+    private void scopedContent (final ScopedContent scoped) {
+        if (scoped.getScope() == null) {
+            content(scoped.getContent());
+            return;
+        }
+        scoped(scoped.getScope(), new Emitter() {
+            @Override
+            public void emit() {
+                content(scoped.getContent());
+            }
+        });
+    }
+
+    private void forLoop (final ForLoop forLoop) {
+        if (forLoop.getScope() == null) {
+            loop(forLoop);
+            return;
+        }
+        scoped(forLoop.getScope(), new Emitter() {
+            @Override
+            public void emit() {
+                loop(forLoop);
+            }
+        });
+    }
+
+    private void loop (ForLoop forLoop) {
+        int iterator = nextLocal++;
+        int loop = nextLocal++;
+        int index = nextLocal++;
+        int item = nextLocal++;
+        Label condition = new Label();
+        Label end = new Label();
+
+        method.visitTypeInsn(NEW, Type.getInternalName(ObjectIterator.class));
+        method.visitInsn(DUP);
+        expression(forLoop.getExpression());
+        method.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(ObjectIterator.class), "<init>", "(Ljava/lang/Object;)V");
+        method.visitVarInsn(ASTORE, iterator);
+
+        method.visitTypeInsn(NEW, Type.getInternalName(ForLoop.Loop.class));
+        method.visitInsn(DUP);
+        method.visitVarInsn(ALOAD, iterator);
+        invoke(INVOKEVIRTUAL, ObjectIterator.class, "size", int.class);
+        method.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(ForLoop.Loop.class), "<init>", "(I)V");
+        method.visitVarInsn(ASTORE, loop);
+
+        assignLocal(forLoop.getLoopVariable(), loop);
+        method.visitInsn(ICONST_0);
+        method.visitVarInsn(ISTORE, index);
+
+        method.visitLabel(condition);
+        method.visitVarInsn(ALOAD, iterator);
+        invoke(INVOKEVIRTUAL, ObjectIterator.class, "hasNext", boolean.class);
+        method.visitJumpInsn(IFEQ, end);
+        method.visitVarInsn(ALOAD, loop);
+        method.visitVarInsn(ILOAD, index);
+        invoke(INVOKEVIRTUAL, ForLoop.Loop.class, "update", void.class, int.class);
+        method.visitIincInsn(index, 1);
+        method.visitVarInsn(ALOAD, iterator);
+        invoke(INVOKEVIRTUAL, ObjectIterator.class, "next", Object.class);
+        method.visitVarInsn(ASTORE, item);
+        assignLocal(forLoop.getVariable(), item);
+        content(forLoop.getContent());
+        method.visitJumpInsn(GOTO, condition);
+        method.visitLabel(end);
+
+        nextLocal -= 4;
+    }
+
+    private void assign (Variable variable, Expression value) {
+        method.visitVarInsn(ALOAD, CONTEXT);
+        if (variable.getSlot() < 0) {
+            method.visitLdcInsn(variable.getIdentifier());
+            expression(value);
+            invoke(INVOKEVIRTUAL, JtwigContext.class, "set", void.class, String.class, Object.class);
+        } else {
+            method.visitLdcInsn(variable.getSlot());
+            expression(value);
+            invoke(INVOKEVIRTUAL, JtwigContext.class, "setLocal", void.class, int.class, Object.class);
+        }
+    }
+
+    private void assignLocal (Variable variable, int local) {
+        method.visitVarInsn(ALOAD, CONTEXT);
+        if (variable.getSlot() < 0) {
+            method.visitLdcInsn(variable.getIdentifier());
+            method.visitVarInsn(ALOAD, local);
+            invoke(INVOKEVIRTUAL, JtwigContext.class, "set", void.class, String.class, Object.class);
+        } else {
+            method.visitLdcInsn(variable.getSlot());
+            method.visitVarInsn(ALOAD, local);
+            invoke(INVOKEVIRTUAL, JtwigContext.class, "setLocal", void.class, int.class, Object.class);
+        }
+    }
+
+    private void condition (Expression expression) {
+        expression(expression);
+        invoke(INVOKESTATIC, BooleanOperations.class, "isTrue", boolean.class, Object.class);
+    }
+
+    private void expression (Expression expression) {
+        if (expression instanceof Constant && ((Constant) expression).isInstanceOf(String.class)) {
+            method.visitLdcInsn(((Constant) expression).getValue());
+        } else if (expression instanceof Constant && ((Constant) expression).isNull()) {
+            method.visitInsn(ACONST_NULL);
+        } else if (expression instanceof Variable && ((Variable) expression).getSlot() >= 0) {
+            method.visitVarInsn(ALOAD, CONTEXT);
+            method.visitLdcInsn(((Variable) expression).getSlot());
+            method.visitLdcInsn(((Variable) expression).getIdentifier());
+            invoke(INVOKEVIRTUAL, JtwigContext.class, "local", Object.class, int.class, String.class);
+        } else if (expression instanceof Variable) {
+            method.visitVarInsn(ALOAD, CONTEXT);
+            method.visitLdcInsn(((Variable) expression).getIdentifier());
+            invoke(INVOKEVIRTUAL, JtwigContext.class, "map", Object.class, String.class);
+        } else if (expression instanceof StrictBinaryOperation && BINARY.containsKey(((StrictBinaryOperation) expression).getOperator())) {
+            StrictBinaryOperation binary = (StrictBinaryOperation) expression;
+            expression(binary.getLeft());
+            expression(binary.getRight());
+            invoke(INVOKESTATIC, operationsOf(binary.getOperator()), BINARY.get(binary.getOperator()), Object.class, Object.class, Object.class);
+        } else if (expression instanceof OperationUnary && ((OperationUnary) expression).getOperator() == Operator.NOT) {
+            expression((Expression) ((OperationUnary) expression).getOperand());
+            invoke(INVOKESTATIC, BooleanOperations.class, "not", Object.class, Object.class);
+        } else if (expression instanceof OperationTernary) {
+            OperationTernary ternary = (OperationTernary) expression;
+            Label ifFalse = new Label();
+            Label end = new Label();
+            condition(ternary.getBooleanExpression());
+            method.visitJumpInsn(IFEQ, ifFalse);
+            expression(ternary.getIfTrueExpression());
+            method.visitJumpInsn(GOTO, end);
+            method.visitLabel(ifFalse);
+            expression(ternary.getIfFalseExpression());
+            method.visitLabel(end);
+        } else {
+            loadConstant(expression, Expression.class);
+            method.visitVarInsn(ALOAD, CONTEXT);
+            invoke(INVOKEINTERFACE, Expression.class, "calculate", Object.class, JtwigContext.class);
+        }
+    }
+
+    private Class<?> operationsOf (Operator operator) {
+        switch (operator) {
+            case AND:
+            case OR:
+                return BooleanOperations.class;
+            case ADD:
+            case SUB:
+            case TIMES:
+            case DIV:
+            case MOD:
+                return MathOperations.class;
+            default:
+                return RelationalOperations.class;
+        }
+    }
+
+    private void loadConstant (Object value, Class<?> type) {
+        constants.add(value);
+        constantTypes.add(type);
+        method.visitVarInsn(ALOAD, THIS);
+        method.visitFieldInsn(GETFIELD, className, field(constants.size() - 1), Type.getDescriptor(type));
+    }
+
+    private void invoke (int opcode, Class<?> owner, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        Type[] arguments = new Type[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++)
+            arguments[i] = Type.getType(parameterTypes[i]);
+        method.visitMethodInsn(opcode, Type.getInternalName(owner), name, Type.getMethodDescriptor(Type.getType(returnType), arguments));
+    }
+
+    private static String field (int index) {
+        return "constant" + index;
+    }
+
+    private interface Emitter {
+        void emit();
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.ParseException;
+import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.resource.ModifiableJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of compiled templates keyed by resource identity (see the
+ * equals/hashCode of each {@link JtwigResource} implementation).
+ *
+ * Concurrent misses for the same resource compile it only once, the other
+ * threads wait for that result. Least recently used entries are evicted once
+ * the maximum size is reached. Templates read from a
+ * {@link ModifiableJtwigResource} are compiled again once any of the
+ * resources they were compiled from is modified; each entry checks its
+ * resources at most once per refresh interval.
+ */
+public class CompiledTemplateCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+    public static CompiledTemplateCache noCache () {
+        return new CompiledTemplateCache(0);
+    }
+
+    private final Cache<JtwigResource, Entry> cache;
+
+    public CompiledTemplateCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * @param refreshInterval milliseconds between two checks of the resources
+     *                        of a cached template, 0 never checks them
+     */
+    public Content get (JtwigResource resource, long refreshInterval, Loader loader) throws ParseException, CompileException {
+        try {
+            Entry entry = cache.getIfPresent(resource);
+            if (entry != null && entry.isModified(refreshInterval))
+                cache.asMap().remove(resource, entry);
+            return cache.get(resource, callable(resource, loader)).content;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ParseException)
+                throw (ParseException) e.getCause();
+            if (e.getCause() instanceof CompileException)
+                throw (CompileException) e.getCause();
+            throw new CompileException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw new CompileException(e.getCause());
+        }
+    }
+
+    public void invalidate (JtwigResource resource) {
+        cache.invalidate(resource);
+    }
+
+    public void invalidateAll () {
+        cache.invalidateAll();
+    }
+
+    public long size () {
+        return cache.size();
+    }
+
+    private Callable<Entry> callable(final JtwigResource resource, final Loader loader) {
+        return new Callable<Entry>() {
+            @Override
+            public Entry call() throws Exception {
+                List<JtwigResource> dependencies = new ArrayList<>();
+                dependencies.add(resource);
+                return new Entry(loader.load(resource, dependencies), dependencies);
+            }
+        };
+    }
+
+    public static interface Loader {
+        /**
+         * @param dependencies filled with the resources read to compile the
+         *                     template, besides the resource itself
+         */
+        Content load (JtwigResource resource, List<JtwigResource> dependencies) throws ParseException, CompileException;
+    }
+
+    private static class Entry {
+        private final Content content;
+        private final Map<ModifiableJtwigResource, Long> stamps = new HashMap<>();
+        private volatile long lastCheck = System.nanoTime();
+
+        private Entry(Content content, List<JtwigResource> dependencies) {
+            this.content = content;
+            for (JtwigResource dependency : dependencies) {
+                if (dependency instanceof ModifiableJtwigResource)
+                    stamps.put((ModifiableJtwigResource) dependency, ((ModifiableJtwigResource) dependency).lastModified());
+            }
+        }
+
+        private boolean isModified(long refreshInterval) {
+            if (stamps.isEmpty() || refreshInterval <= 0)
+                return false;
+            long now = System.nanoTime();
+            if (now - lastCheck < TimeUnit.MILLISECONDS.toNanos(refreshInterval))
+                return false;
+            lastCheck = now;
+            for (Map.Entry<ModifiableJtwigResource, Long> stamp : stamps.entrySet()) {
+                if (stamp.getKey().lastModified() != stamp.getValue())
+                    return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.compile;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
+import com.lyncode.jtwig.functions.repository.AbstractFunctionRepository;
+import com.lyncode.jtwig.resource.JtwigResource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State available while compiling a template: the resource being compiled,
+ * used to resolve includes and extends, and the configuration it is compiled with.
+ */
+public class CompileContext {
+    private final JtwigResource resource;
+    private final JtwigConfiguration configuration;
+    private final List<JtwigResource> resources;
+
+    public CompileContext(JtwigResource resource, JtwigConfiguration configuration) {
+        this(resource, configuration, new ArrayList<JtwigResource>());
+    }
+
+    private CompileContext(JtwigResource resource, JtwigConfiguration configuration, List<JtwigResource> resources) {
+        this.resource = resource;
+        this.configuration = configuration;
+        this.resources = resources;
+        resources.add(resource);
+    }
+
+    public JtwigResource getResource() {
+        return resource;
+    }
+
+    public JtwigConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public CompileContext withResource(JtwigResource resource) {
+        return new CompileContext(resource, configuration, resources);
+    }
+
+    /**
+     * Every resource read so far to compile the template, including the
+     * templates it extends or includes.
+     */
+    public List<JtwigResource> getResources() {
+        return resources;
+    }
+
+    /**
+     * The function a call to {@code name} binds to, or null when calls are
+     * left to be resolved against the render context.
+     */
+    public JtwigFunction function(String name) throws CompileException {
+        AbstractFunctionRepository repository = configuration.getFunctionRepository();
+        if (repository == null || configuration.isLateFunctionBinding())
+            return null;
+        JtwigFunction function = repository.find(name);
+        if (function == null)
+            throw new CompileException("Function " + name + " not found");
+        return function;
+    }
+
+    public boolean isPure(JtwigFunction function) {
+        JtwigFunctionDeclaration declaration = function.getClass().getAnnotation(JtwigFunctionDeclaration.class);
+        return declaration != null && declaration.pure();
+    }
+
+    /**
+     * Whether calls to {@code name} are declared safe, so autoescaping leaves
+     * their result as it is. Without a repository the default functions are used.
+     */
+    public boolean isSafe(String name) {
+        JtwigFunctionDeclaration declaration = declaration(name);
+        return declaration != null && declaration.safe();
+    }
+
+    /**
+     * Whether {@code name} is declared to probe for undefined values, resolved
+     * like {@link #isSafe} so unbound calls are covered too.
+     */
+    public boolean probesUndefined(String name) {
+        JtwigFunctionDeclaration declaration = declaration(name);
+        return declaration != null && declaration.probesUndefined();
+    }
+
+    public boolean isMemoizing(JtwigFunction function) {
+        return configuration.isMemoizePureFunctions() && isPure(function);
+    }
+
+    private JtwigFunctionDeclaration declaration(String name) {
+        AbstractFunctionRepository repository = configuration.getFunctionRepository();
+        JtwigFunction function = (repository == null ? JtwigContext.defaultFunctions() : repository).find(name);
+        if (function == null)
+            return null;
+        return function.getClass().getAnnotation(JtwigFunctionDeclaration.class);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.compile;
+
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.content.ForLoop;
+import com.lyncode.jtwig.tree.content.IfExpression;
+import com.lyncode.jtwig.tree.content.JtwigContent;
+import com.lyncode.jtwig.tree.content.ScopedContent;
+import com.lyncode.jtwig.tree.content.StaticText;
+import com.lyncode.jtwig.tree.structural.Block;
+import com.lyncode.jtwig.tree.tags.Verbatim;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simplifies a compiled template once its blocks have been resolved: nested
+ * contents and blocks are flattened into their parent and adjacent static
+ * nodes are merged into a single {@link StaticText}, so a fully static
+ * subtree (an include, a block, a verbatim tag) ends up as one pre-encoded node.
+ */
+public class ContentOptimizer {
+    private final Charset charset;
+
+    public ContentOptimizer(Charset charset) {
+        this.charset = charset;
+    }
+
+    public Content optimize(Content content) {
+        Content result = optimizeNode(content);
+        if (result instanceof JtwigContent && ((JtwigContent) result).getContents().size() == 1)
+            return ((JtwigContent) result).getContents().get(0);
+        return result;
+    }
+
+    private Content optimizeNode(Content content) {
+        if (content instanceof JtwigContent) {
+            optimizeContents((JtwigContent) content);
+        } else if (content instanceof Block) {
+            return optimizeNode(((Block) content).getContent());
+        } else if (content instanceof Verbatim) {
+            return new StaticText(((Verbatim) content).getText().getText(), charset);
+        } else if (content instanceof ScopedContent) {
+            ScopedContent scoped = (ScopedContent) content;
+            scoped.setContent(optimizeNode(scoped.getContent()));
+            if (isStatic(scoped.getContent()))
+                return scoped.getContent();
+        } else if (content instanceof ForLoop) {
+            optimizeContents(((ForLoop) content).getContent());
+        } else if (content instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) content;
+            optimizeContents(ifExpression.getContent());
+            for (IfExpression.ElseIfExpression elseIfExpression : ifExpression.getElseIfExpressions())
+                optimizeContents(elseIfExpression.getContent());
+            if (ifExpression.getElseExpression() != null)
+                optimizeContents(ifExpression.getElseExpression().getContent());
+        }
+        return content;
+    }
+
+    private boolean isStatic(Content content) {
+        if (content instanceof StaticText)
+            return true;
+        if (!(content instanceof JtwigContent))
+            return false;
+        for (Content child : ((JtwigContent) content).getContents()) {
+            if (!(child instanceof StaticText))
+                return false;
+        }
+        return true;
+    }
+
+    private void optimizeContents(JtwigContent content) {
+        List<Content> flattened = new ArrayList<>();
+        for (Content child : content.getContents()) {
+            Content optimized = optimizeNode(child);
+            if (optimized instanceof JtwigContent)
+                flattened.addAll(((JtwigContent) optimized).getContents());
+            else
+                flattened.add(optimized);
+        }
+
+        List<Content> result = content.getContents();
+        result.clear();
+        List<StaticText> run = new ArrayList<>();
+        for (Content child : flattened) {
+            if (child instanceof StaticText) {
+                run.add((StaticText) child);
+            } else {
+                addMerged(result, run);
+                result.add(child);
+            }
+        }
+        addMerged(result, run);
+    }
+
+    private void addMerged(List<Content> result, List<StaticText> run) {
+        if (run.size() == 1 && !run.get(0).getText().isEmpty()) {
+            result.add(run.get(0));
+        } else if (run.size() > 1) {
+            StringBuilder builder = new StringBuilder();
+            for (StaticText text : run)
+                builder.append(text.getText());
+            if (builder.length() > 0)
+                result.add(new StaticText(builder.toString(), charset));
+        }
+        run.clear();
+    }
+}
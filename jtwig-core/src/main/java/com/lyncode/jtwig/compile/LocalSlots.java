@@ -0,0 +1,182 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.compile;
+
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.api.ExpressionWrapper;
+import com.lyncode.jtwig.tree.content.*;
+import com.lyncode.jtwig.tree.expressions.*;
+import com.lyncode.jtwig.tree.helper.ElementList;
+import com.lyncode.jtwig.tree.helper.StrictBinaryOperation;
+import com.lyncode.jtwig.tree.helper.VariableScope;
+import com.lyncode.jtwig.tree.structural.Block;
+import com.lyncode.jtwig.tree.tags.Verbatim;
+
+import java.util.*;
+
+/**
+ * Gives every variable a template assigns (set targets, loop variables and
+ * "loop") a slot in a frame, so reading and writing it is an array access
+ * instead of a model map lookup. Other variables are still read from the model.
+ *
+ * For loops and included templates get the {@link VariableScope} of the
+ * slots they assign, so they do not leak into the enclosing template.
+ *
+ * Runs on the compiled template, once includes and blocks are resolved.
+ */
+public class LocalSlots {
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<Variable> variables = new ArrayList<>();
+    private final Deque<Map<String, Boolean>> scopes = new ArrayDeque<>();
+
+    /**
+     * @return the content within a {@link LocalFrame}, or the content itself
+     * if it assigns no variables
+     */
+    public Content allocate(Content content) throws CompileException {
+        content(content);
+        if (slots.isEmpty())
+            return content;
+        for (Variable variable : variables) {
+            Integer slot = slots.get(variable.getIdentifier());
+            if (slot != null)
+                variable.setSlot(slot);
+        }
+        return new LocalFrame(content, slots.size());
+    }
+
+    private void declare(Variable variable, boolean restored) {
+        String name = variable.getIdentifier();
+        if (!slots.containsKey(name))
+            slots.put(name, slots.size());
+        variables.add(variable);
+
+        boolean innermost = true;
+        for (Map<String, Boolean> scope : scopes) {
+            Boolean current = scope.get(name);
+            scope.put(name, (current != null && current) || (innermost && restored));
+            innermost = false;
+        }
+    }
+
+    private VariableScope scope(Map<String, Boolean> declared, boolean restoreAll) {
+        int[] scopeSlots = new int[declared.size()];
+        String[] names = new String[declared.size()];
+        boolean[] restored = new boolean[declared.size()];
+        int i = 0;
+        for (Map.Entry<String, Boolean> entry : declared.entrySet()) {
+            scopeSlots[i] = slots.get(entry.getKey());
+            names[i] = entry.getKey();
+            restored[i] = restoreAll || entry.getValue();
+            i++;
+        }
+        return new VariableScope(scopeSlots, names, restored);
+    }
+
+    private void content(Content content) throws CompileException {
+        if (content instanceof JtwigContent) {
+            for (Content child : ((JtwigContent) content).getContents())
+                content(child);
+        } else if (content instanceof Block) {
+            content(((Block) content).getContent());
+        } else if (content instanceof ForLoop) {
+            ForLoop forLoop = (ForLoop) content;
+            expression(forLoop.getExpression());
+            scopes.push(new LinkedHashMap<String, Boolean>());
+            declare(forLoop.getVariable(), true);
+            declare(forLoop.getLoopVariable(), true);
+            if (forLoop instanceof ForPairLoop)
+                declare(((ForPairLoop) forLoop).getValue(), true);
+            content(forLoop.getContent());
+            forLoop.setScope(scope(scopes.pop(), false));
+        } else if (content instanceof ScopedContent) {
+            ScopedContent scoped = (ScopedContent) content;
+            scopes.push(new LinkedHashMap<String, Boolean>());
+            content(scoped.getContent());
+            Map<String, Boolean> declared = scopes.pop();
+            if (!declared.isEmpty())
+                scoped.setScope(scope(declared, true));
+        } else if (content instanceof SetVariable) {
+            SetVariable setVariable = (SetVariable) content;
+            declare(setVariable.getName(), false);
+            expression(setVariable.getAssignment());
+        } else if (content instanceof Output) {
+            expression(((Output) content).getExpression());
+        } else if (content instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) content;
+            expression(ifExpression.getConditionalExpression());
+            content(ifExpression.getContent());
+            for (IfExpression.ElseIfExpression elseIfExpression : ifExpression.getElseIfExpressions()) {
+                expression(elseIfExpression.getCondition());
+                content(elseIfExpression.getContent());
+            }
+            if (ifExpression.getElseExpression() != null)
+                content(ifExpression.getElseExpression().getContent());
+        } else if (!(content instanceof StaticText || content instanceof Text || content instanceof Verbatim || content instanceof LocalFrame)) {
+            // its variables would be left without slots and silently read the model
+            throw unsupported(content);
+        }
+    }
+
+    private void expression(Object expression) throws CompileException {
+        if (expression instanceof Variable) {
+            variables.add((Variable) expression);
+        } else if (expression instanceof ElementList) {
+            for (Object element : ((ElementList) expression).getList())
+                expression(element);
+        } else if (expression instanceof ValueList) {
+            ValueList list = (ValueList) expression;
+            for (int i = 0; i < list.size(); i++)
+                expression(list.get(i));
+        } else if (expression instanceof ValueMap) {
+            for (Object value : ((ValueMap) expression).getMap().values())
+                expression(value);
+        } else if (expression instanceof MapSelection) {
+            expression(((MapSelection) expression).getVariable());
+            expression(((MapSelection) expression).getKey());
+        } else if (expression instanceof Composition) {
+            expression(((Composition) expression).getExpression());
+            for (FunctionElement filter : ((Composition) expression).getFilters())
+                expression(filter);
+        } else if (expression instanceof FunctionElement) {
+            expression(((FunctionElement) expression).getArguments());
+        } else if (expression instanceof StrictBinaryOperation) {
+            expression(((StrictBinaryOperation) expression).getLeft());
+            expression(((StrictBinaryOperation) expression).getRight());
+        } else if (expression instanceof OperationBinary) {
+            expression(((OperationBinary) expression).getOperands());
+        } else if (expression instanceof OperationUnary) {
+            expression(((OperationUnary) expression).getOperand());
+        } else if (expression instanceof OperationTernary) {
+            OperationTernary ternary = (OperationTernary) expression;
+            expression(ternary.getBooleanExpression());
+            expression(ternary.getIfTrueExpression());
+            expression(ternary.getIfFalseExpression());
+        } else if (expression instanceof ExpressionWrapper) {
+            expression(((ExpressionWrapper) expression).getExpression());
+        } else if (expression instanceof Expression && !(expression instanceof Constant)) {
+            // a variable left without its slot would silently read the model
+            throw unsupported(expression);
+        }
+    }
+
+    private CompileException unsupported(Object node) {
+        return new CompileException("Unable to allocate slots in " + node.getClass().getName());
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.configuration;
+
+import com.lyncode.jtwig.cache.CompiledTemplateCache;
+import com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy;
+import com.lyncode.jtwig.functions.repository.AbstractFunctionRepository;
+import com.lyncode.jtwig.precompile.PrecompiledTemplates;
+
+import java.nio.charset.Charset;
+
+/**
+ * Settings used to compile templates. Each configuration owns the cache of
+ * templates compiled with it, changing a compilation setting clears that cache.
+ */
+public class JtwigConfiguration {
+    public static final long DEFAULT_TEMPLATE_REFRESH_INTERVAL = 1000;
+
+    private CompiledTemplateCache templateCache = new CompiledTemplateCache(CompiledTemplateCache.DEFAULT_MAXIMUM_SIZE);
+    private boolean bytecodeCompilation = false;
+    private Charset sourceCharset = Charset.defaultCharset();
+    private Charset outputCharset = Charset.defaultCharset();
+    private PrecompiledTemplates precompiledTemplates = PrecompiledTemplates.fromClassLoader(JtwigConfiguration.class.getClassLoader());
+    private AbstractFunctionRepository functionRepository;
+    private boolean lateFunctionBinding = false;
+    private boolean memoizePureFunctions = false;
+    private EscapeStrategy autoescape;
+    private long templateRefreshInterval = DEFAULT_TEMPLATE_REFRESH_INTERVAL;
+
+    public CompiledTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    public void setTemplateCache(CompiledTemplateCache templateCache) {
+        this.templateCache = templateCache;
+    }
+
+    public long getTemplateRefreshInterval() {
+        return templateRefreshInterval;
+    }
+
+    /**
+     * Milliseconds between two checks for modifications of the files a cached
+     * template was compiled from, 0 never checks them.
+     */
+    public void setTemplateRefreshInterval(long templateRefreshInterval) {
+        this.templateRefreshInterval = templateRefreshInterval;
+    }
+
+    public boolean isBytecodeCompilation() {
+        return bytecodeCompilation;
+    }
+
+    public void setBytecodeCompilation(boolean bytecodeCompilation) {
+        this.bytecodeCompilation = bytecodeCompilation;
+        templateCache.invalidateAll();
+    }
+
+    public Charset getSourceCharset() {
+        return sourceCharset;
+    }
+
+    public void setSourceCharset(Charset sourceCharset) {
+        this.sourceCharset = sourceCharset;
+        templateCache.invalidateAll();
+    }
+
+    public Charset getOutputCharset() {
+        return outputCharset;
+    }
+
+    public void setOutputCharset(Charset outputCharset) {
+        this.outputCharset = outputCharset;
+        templateCache.invalidateAll();
+    }
+
+    public PrecompiledTemplates getPrecompiledTemplates() {
+        return precompiledTemplates;
+    }
+
+    public void setPrecompiledTemplates(PrecompiledTemplates precompiledTemplates) {
+        this.precompiledTemplates = precompiledTemplates;
+        templateCache.invalidateAll();
+    }
+
+    public AbstractFunctionRepository getFunctionRepository() {
+        return functionRepository;
+    }
+
+    /**
+     * Function calls are bound to this repository when templates are compiled,
+     * calls to functions it does not know fail the compilation. Without a
+     * repository functions are looked up in the render context.
+     */
+    public void setFunctionRepository(AbstractFunctionRepository functionRepository) {
+        this.functionRepository = functionRepository;
+        templateCache.invalidateAll();
+    }
+
+    public boolean isLateFunctionBinding() {
+        return lateFunctionBinding;
+    }
+
+    /**
+     * Skips compile time binding so functions added to each render context
+     * with {@link com.lyncode.jtwig.JtwigContext#withFunction} can override
+     * the repository ones.
+     */
+    public void setLateFunctionBinding(boolean lateFunctionBinding) {
+        this.lateFunctionBinding = lateFunctionBinding;
+        templateCache.invalidateAll();
+    }
+
+    public boolean isMemoizePureFunctions() {
+        return memoizePureFunctions;
+    }
+
+    /**
+     * Remembers the results of bound pure function calls during a render, so
+     * a call repeated with the same immutable arguments is only evaluated once.
+     */
+    public void setMemoizePureFunctions(boolean memoizePureFunctions) {
+        this.memoizePureFunctions = memoizePureFunctions;
+        templateCache.invalidateAll();
+    }
+
+    /**
+     * Describes the settings that change compiled template trees, templates
+     * precompiled with other settings are compiled again instead of used.
+     */
+    public String compileSettings() {
+        return "autoescape=" + (autoescape == null ? "none" : autoescape.name());
+    }
+
+    public EscapeStrategy getAutoescape() {
+        return autoescape;
+    }
+
+    /**
+     * Escapes every output with this strategy, unless it is static text, a
+     * number or boolean operation, ends with a safe filter such as raw or
+     * renders a {@link com.lyncode.jtwig.functions.util.SafeString}. Null
+     * disables autoescaping.
+     */
+    public void setAutoescape(EscapeStrategy autoescape) {
+        this.autoescape = autoescape;
+        templateCache.invalidateAll();
+    }
+}
@@ -31,4 +31,8 @@ public class CalculateException extends Exception {
     public CalculateException(Throwable cause) {
         super(cause);
     }
+
+    protected CalculateException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
 }
@@ -369,7 +369,8 @@ public class JtwigExpressionParser extends BaseParser<Expression> {
     }
 
     boolean throwException(ParseException exception) throws ParseBypassException {
-        throw new ParseBypassException(exception);
+        // the given exception is part of the (reused) rule graph, never throw it directly
+        throw new ParseBypassException(new ParseException(exception.getMessage()));
     }
 
     Rule symbol(JtwigSymbol symbol) {
@@ -20,6 +20,7 @@ import com.lyncode.jtwig.exception.ParseBypassException;
 import com.lyncode.jtwig.exception.ParseException;
 import com.lyncode.jtwig.exception.ResourceException;
 import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.resource.StringJtwigResource;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.content.*;
 import com.lyncode.jtwig.tree.documents.JtwigDocument;
@@ -38,6 +39,8 @@ import org.parboiled.parserunners.ReportingParseRunner;
 import org.parboiled.support.ParsingResult;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import static com.lyncode.jtwig.parser.JtwigKeyword.*;
 import static com.lyncode.jtwig.parser.JtwigSymbol.*;
@@ -46,11 +49,35 @@ import static com.lyncode.jtwig.tree.content.IfExpression.ElseIfExpression;
 import static org.parboiled.Parboiled.createParser;
 
 public class JtwigParser extends BaseParser<Content> {
+    // Building the rule graph is expensive, so built graphs are kept in a small pool and reused.
+    // Parser instances keep parse state (action context, tag properties), hence used by one parse at a time.
+    // Unlike thread locals, the pool does not pin generated classes to (container) threads.
+    private static final BlockingQueue<Rule> START_RULES = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Drops the pooled rule graphs, for instance when the application using
+     * jtwig is stopped. Later parses build them again.
+     */
+    public static void release() {
+        START_RULES.clear();
+    }
+
     public static JtwigDocument parse(JtwigResource input) throws ParseException {
+        return parse(input, Charset.defaultCharset());
+    }
+
+    public static JtwigDocument parse(JtwigResource input, Charset charset) throws ParseException {
         try {
-            ReportingParseRunner<Object> runner = new ReportingParseRunner<Object>(createParser(JtwigParser.class).start());
-            ParsingResult<Object> result = runner.run(FileUtils.readAllText(input.retrieve(), Charset.defaultCharset()));
-            return (JtwigDocument) result.resultValue;
+            String text = text(input, charset);
+            Rule start = START_RULES.poll();
+            if (start == null)
+                start = createParser(JtwigParser.class).start();
+            try {
+                ParsingResult<Object> result = new ReportingParseRunner<Object>(start).run(text);
+                return (JtwigDocument) result.resultValue;
+            } finally {
+                START_RULES.offer(start);
+            }
         } catch (ParserRuntimeException e) {
             if (e.getCause() instanceof ParseBypassException) {
                 ParseException innerException = ((ParseBypassException) e.getCause()).getInnerException();
@@ -63,6 +90,12 @@ public class JtwigParser extends BaseParser<Content> {
         }
     }
 
+    private static String text(JtwigResource input, Charset charset) throws ResourceException {
+        if (input instanceof StringJtwigResource)
+            return ((StringJtwigResource) input).getContent();
+        return FileUtils.readAllText(input.retrieve(), charset);
+    }
+
     JtwigBasicParser basicParser = createParser(JtwigBasicParser.class);
     JtwigExpressionParser expressionParser = createParser(JtwigExpressionParser.class);
     JtwigTagPropertyParser tagPropertyParser = createParser(JtwigTagPropertyParser.class);
@@ -450,7 +483,8 @@ public class JtwigParser extends BaseParser<Content> {
     }
 
     boolean throwException(ParseException exception) throws ParseBypassException {
-        throw new ParseBypassException(exception);
+        // the given exception is part of the (reused) rule graph, never throw it directly
+        throw new ParseBypassException(new ParseException(exception.getMessage()));
     }
 
     <T> T peek(int position, Class<T> typeClass) {
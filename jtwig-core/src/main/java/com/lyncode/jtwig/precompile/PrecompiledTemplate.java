@@ -0,0 +1,34 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.precompile;
+
+import com.lyncode.jtwig.tree.api.Content;
+
+/**
+ * Implemented by the classes generated at build time by {@link TemplateSourceWriter}.
+ * Each call returns a new, already compiled, content tree. Function calls in it
+ * are bound when the tree is loaded, compiling it again with the runtime configuration.
+ */
+public interface PrecompiledTemplate {
+    Content content ();
+
+    /**
+     * The {@link com.lyncode.jtwig.configuration.JtwigConfiguration#compileSettings()}
+     * the template was compiled with.
+     */
+    String settings ();
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.precompile;
+
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.resource.PathJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Index of the templates precompiled at build time, mapping template paths
+ * to generated classes. Indexes are read from every
+ * {@value #INDEX} found in the class path.
+ */
+public class PrecompiledTemplates {
+    public static final String INDEX = "META-INF/jtwig/precompiled.properties";
+
+    public static PrecompiledTemplates none () {
+        return new PrecompiledTemplates(Collections.<String, String>emptyMap(), PrecompiledTemplates.class.getClassLoader());
+    }
+
+    public static PrecompiledTemplates fromClassLoader (ClassLoader classLoader) {
+        Map<String, String> index = new HashMap<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX);
+            while (resources.hasMoreElements()) {
+                Properties properties = new Properties();
+                try (InputStream inputStream = resources.nextElement().openStream()) {
+                    properties.load(inputStream);
+                }
+                for (String path : properties.stringPropertyNames())
+                    index.put(normalize(path), properties.getProperty(path));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read precompiled template index", e);
+        }
+        return new PrecompiledTemplates(index, classLoader);
+    }
+
+    public static String normalize (String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/"))
+            normalized = normalized.substring(1);
+        return normalized;
+    }
+
+    private final Map<String, String> index;
+    private final ClassLoader classLoader;
+
+    public PrecompiledTemplates(Map<String, String> index, ClassLoader classLoader) {
+        this.index = index;
+        this.classLoader = classLoader;
+    }
+
+    public boolean isEmpty () {
+        return index.isEmpty();
+    }
+
+    /**
+     * @return the precompiled content of the resource, or null when there is
+     * none or it was compiled with other settings than the configuration ones
+     */
+    public Content lookup (JtwigResource resource, JtwigConfiguration configuration) throws CompileException {
+        if (index.isEmpty() || !(resource instanceof PathJtwigResource))
+            return null;
+
+        String className = index.get(normalize(((PathJtwigResource) resource).getPath()));
+        if (className == null)
+            return null;
+
+        try {
+            PrecompiledTemplate template = (PrecompiledTemplate) classLoader.loadClass(className).newInstance();
+            if (!template.settings().equals(configuration.compileSettings()))
+                return null;
+            return template.content();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new CompileException(e);
+        }
+    }
+}
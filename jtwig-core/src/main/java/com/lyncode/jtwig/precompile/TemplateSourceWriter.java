@@ -0,0 +1,295 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.precompile;
+
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.content.*;
+import com.lyncode.jtwig.tree.expressions.*;
+import com.lyncode.jtwig.tree.helper.StrictBinaryOperation;
+import com.lyncode.jtwig.tree.structural.Block;
+import com.lyncode.jtwig.tree.tags.Verbatim;
+
+import java.util.Map;
+
+/**
+ * Writes the Java source of a {@link PrecompiledTemplate} that rebuilds a
+ * compiled content tree. Includes and extends are already resolved in a
+ * compiled tree, so the generated class has no dependency on other templates.
+ *
+ * Every content list gets its own method to keep generated methods small.
+ */
+public class TemplateSourceWriter {
+    private static final int MAX_LITERAL_LENGTH = 8192;
+
+    private final StringBuilder methods = new StringBuilder();
+    private StringBuilder body;
+    private int methodCount = 0;
+    private int variableCount = 0;
+
+    public String write (String packageName, String className, Content content, JtwigConfiguration configuration) throws CompileException {
+        methods.setLength(0);
+        methodCount = 0;
+        if (!(content instanceof JtwigContent))
+            content = new JtwigContent().add(content);
+        String root = content(content);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        source.append("import com.lyncode.jtwig.tree.api.*;\n")
+                .append("import com.lyncode.jtwig.tree.content.*;\n")
+                .append("import com.lyncode.jtwig.tree.expressions.*;\n")
+                .append("import com.lyncode.jtwig.tree.helper.*;\n")
+                .append("import com.lyncode.jtwig.tree.structural.*;\n")
+                .append("import com.lyncode.jtwig.tree.tags.*;\n\n")
+                .append("public final class ").append(className).append(" implements com.lyncode.jtwig.precompile.PrecompiledTemplate {\n")
+                .append("    @Override\n")
+                .append("    public Content content() {\n")
+                .append("        return ").append(root).append(";\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public String settings() {\n")
+                .append("        return ").append(literal(configuration.compileSettings())).append(";\n")
+                .append("    }\n")
+                .append(methods)
+                .append("}\n");
+        return source.toString();
+    }
+
+    private String content (Content content) throws CompileException {
+        if (content instanceof JtwigContent)
+            return jtwigContent((JtwigContent) content);
+        if (content instanceof StaticText)
+            return "new StaticText(" + string(((StaticText) content).getText()) + ")";
+        if (content instanceof Text)
+            return "new Text(" + string(((Text) content).getText()) + ")";
+        if (content instanceof Output)
+            return "new Output(" + expression((Expression) ((Output) content).getExpression()) + ")";
+        if (content instanceof Block) {
+            Block block = (Block) content;
+            String variable = declare("Block", "new Block(" + literal(block.getName()) + ")");
+            statement(variable + ".setContent(" + content(block.getContent()) + ")");
+            return variable;
+        }
+        if (content instanceof ScopedContent)
+            return "new ScopedContent(" + content(((ScopedContent) content).getContent()) + ")";
+        if (content instanceof Verbatim) {
+            String variable = declare("Verbatim", "new Verbatim()");
+            statement(variable + ".setText(new Text(" + string(((Verbatim) content).getText().getText()) + "))");
+            return variable;
+        }
+        if (content instanceof SetVariable) {
+            SetVariable setVariable = (SetVariable) content;
+            String variable = declare("SetVariable", "new SetVariable(" + expression(setVariable.getName()) + ")");
+            statement(variable + ".setAssignment(" + expression((Expression) setVariable.getAssignment()) + ")");
+            return variable;
+        }
+        if (content instanceof ForPairLoop) {
+            ForPairLoop loop = (ForPairLoop) content;
+            String variable = declare("ForPairLoop", "new ForPairLoop(" + expression(loop.getVariable()) + ", "
+                    + expression(loop.getValue()) + ", " + expression(loop.getExpression()) + ")");
+            statement(variable + ".setContent(" + content(loop.getContent()) + ")");
+            return variable;
+        }
+        if (content instanceof ForLoop) {
+            ForLoop loop = (ForLoop) content;
+            String variable = declare("ForLoop", "new ForLoop(" + expression(loop.getVariable()) + ", " + expression(loop.getExpression()) + ")");
+            statement(variable + ".setContent(" + content(loop.getContent()) + ")");
+            return variable;
+        }
+        if (content instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) content;
+            String variable = declare("IfExpression", "new IfExpression(" + expression(ifExpression.getConditionalExpression()) + ")");
+            statement(variable + ".setContent(" + content(ifExpression.getContent()) + ")");
+            for (IfExpression.ElseIfExpression elseIf : ifExpression.getElseIfExpressions()) {
+                String elseIfVariable = declare("IfExpression.ElseIfExpression", "new IfExpression.ElseIfExpression(" + expression(elseIf.getCondition()) + ")");
+                statement(elseIfVariable + ".setContent(" + content(elseIf.getContent()) + ")");
+                statement(variable + ".addElseIf(" + elseIfVariable + ")");
+            }
+            if (ifExpression.getElseExpression() != null) {
+                String elseVariable = declare("IfExpression.ElseExpression", "new IfExpression.ElseExpression()");
+                statement(elseVariable + ".setContent(" + content(ifExpression.getElseExpression().getContent()) + ")");
+                statement(variable + ".setElseExpression(" + elseVariable + ")");
+            }
+            return variable;
+        }
+        throw new CompileException("Unable to precompile " + content.getClass().getName());
+    }
+
+    private String jtwigContent (JtwigContent content) throws CompileException {
+        StringBuilder parentBody = body;
+        int parentVariableCount = variableCount;
+        String method = "content" + (methodCount++);
+
+        body = new StringBuilder();
+        variableCount = 0;
+        String result = declare("JtwigContent", "new JtwigContent()");
+        for (Content child : content.getContents())
+            statement(result + ".add(" + content(child) + ")");
+
+        methods.append("\n    private JtwigContent ").append(method).append("() {\n")
+                .append(body)
+                .append("        return ").append(result).append(";\n")
+                .append("    }\n");
+
+        body = parentBody;
+        variableCount = parentVariableCount;
+        return method + "()";
+    }
+
+    private String string (String text) {
+        if (text.length() <= MAX_LITERAL_LENGTH)
+            return literal(text);
+
+        String variable = declare("StringBuilder", "new StringBuilder()");
+        for (int i = 0; i < text.length(); i += MAX_LITERAL_LENGTH)
+            statement(variable + ".append(" + literal(text.substring(i, Math.min(text.length(), i + MAX_LITERAL_LENGTH))) + ")");
+        return variable + ".toString()";
+    }
+
+    private String expression (Object expression) throws CompileException {
+        if (expression instanceof Constant)
+            return "new Constant<>(" + constant(((Constant) expression).getValue()) + ")";
+        if (expression instanceof Variable)
+            return "new Variable(" + literal(((Variable) expression).getIdentifier()) + ")";
+        if (expression instanceof OperationBinary) {
+            OperationBinary binary = (OperationBinary) expression;
+            String variable = declare("OperationBinary", "new OperationBinary(" + expression(binary.getOperands().get(0)) + ")");
+            for (int i = 0; i < binary.getOperators().size(); i++) {
+                statement(variable + ".addOperator(Operator." + binary.getOperators().get(i).name() + ")");
+                if (i + 1 < binary.getOperands().size())
+                    statement(variable + ".add(" + expression(binary.getOperands().get(i + 1)) + ")");
+            }
+            return variable;
+        }
+        if (expression instanceof StrictBinaryOperation) {
+            StrictBinaryOperation binary = (StrictBinaryOperation) expression;
+            return "StrictBinaryOperation.create(Operator." + binary.getOperator().name()
+                    + ", " + expression(binary.getLeft()) + ", " + expression(binary.getRight()) + ")";
+        }
+        if (expression instanceof OperationUnary) {
+            OperationUnary unary = (OperationUnary) expression;
+            String variable = declare("OperationUnary", "new OperationUnary(Operator." + unary.getOperator().name() + ")");
+            statement(variable + ".setOperand(" + expression(unary.getOperand()) + ")");
+            return variable;
+        }
+        if (expression instanceof OperationTernary) {
+            OperationTernary ternary = (OperationTernary) expression;
+            String variable = declare("OperationTernary", "new OperationTernary(" + expression(ternary.getBooleanExpression()) + ")");
+            statement(variable + ".setIfTrueExpression(" + expression(ternary.getIfTrueExpression()) + ")");
+            statement(variable + ".setIfFalseExpression(" + expression(ternary.getIfFalseExpression()) + ")");
+            return variable;
+        }
+        if (expression instanceof Selection) {
+            String variable = declare("Selection", "new Selection()");
+            for (Object element : ((Selection) expression).getList())
+                statement(variable + ".add(" + expression(element) + ")");
+            return variable;
+        }
+        if (expression instanceof Composition) {
+            Composition composition = (Composition) expression;
+            String variable = declare("Composition", "new Composition(" + expression(composition.getExpression()) + ")");
+            for (FunctionElement filter : composition.getFilters())
+                statement(variable + ".add(" + expression(filter) + ")");
+            return variable;
+        }
+        if (expression instanceof FunctionElement) {
+            FunctionElement function = (FunctionElement) expression;
+            String variable = declare("FunctionElement", "new FunctionElement(" + literal(function.getName()) + ")");
+            for (int i = 0; i < function.getArguments().size(); i++)
+                statement(variable + ".add(" + expression(function.getArguments().get(i)) + ")");
+            return variable;
+        }
+        if (expression instanceof ValueList) {
+            ValueList list = (ValueList) expression;
+            String variable = declare("ValueList", "new ValueList()");
+            for (int i = 0; i < list.size(); i++)
+                statement(variable + ".add(" + expression(list.get(i)) + ")");
+            return variable;
+        }
+        if (expression instanceof ValueMap) {
+            String variable = declare("ValueMap", "new ValueMap()");
+            for (Map.Entry<String, Object> entry : ((ValueMap) expression).getMap().entrySet())
+                statement(variable + ".add(" + literal(entry.getKey()) + ", " + expression(entry.getValue()) + ")");
+            return variable;
+        }
+        if (expression instanceof AutoEscape) {
+            AutoEscape autoEscape = (AutoEscape) expression;
+            return "new AutoEscape(" + expression(autoEscape.getExpression())
+                    + ", com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy." + autoEscape.getStrategy().name() + ")";
+        }
+        if (expression instanceof MapSelection) {
+            MapSelection selection = (MapSelection) expression;
+            return "new MapSelection(" + expression(selection.getVariable()) + ", " + expression(selection.getKey()) + ")";
+        }
+        throw new CompileException("Unable to precompile expression " + expression);
+    }
+
+    private String constant (Object value) throws CompileException {
+        if (value == null)
+            return "null";
+        if (value instanceof String)
+            return literal((String) value);
+        if (value instanceof Boolean || value instanceof Integer)
+            return value.toString();
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (Double.isNaN(number))
+                return "Double.NaN";
+            if (Double.isInfinite(number))
+                return number > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+            return value + "d";
+        }
+        if (value instanceof Character)
+            return "'" + escape((Character) value) + "'";
+        throw new CompileException("Unable to precompile constant " + value);
+    }
+
+    private String declare (String type, String initializer) {
+        String variable = "v" + (variableCount++);
+        body.append("        ").append(type).append(" ").append(variable).append(" = ").append(initializer).append(";\n");
+        return variable;
+    }
+
+    private void statement (String statement) {
+        body.append("        ").append(statement).append(";\n");
+    }
+
+    private static String literal (String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++)
+            builder.append(escape(value.charAt(i)));
+        return builder.append('"').toString();
+    }
+
+    private static String escape (char character) {
+        switch (character) {
+            case '\n': return "\\n";
+            case '\r': return "\\r";
+            case '\t': return "\\t";
+            case '"': return "\\\"";
+            case '\'': return "\\'";
+            case '\\': return "\\\\";
+        }
+        if (character < 0x20 || character > 0x7e)
+            return String.format("\\u%04x", (int) character);
+        return String.valueOf(character);
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.util.AccessorCache;
+
+class AccessorProperty implements Property {
+    private final AccessorCache.Accessor accessor;
+
+    AccessorProperty(AccessorCache.Accessor accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public Object get(Object target, Object... arguments) throws CalculateException {
+        try {
+            return accessor.invoke(target, arguments);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CalculateException("Unable to get " + accessor + " from " + target, e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+import com.lyncode.jtwig.util.AccessorCache;
+
+/**
+ * Accessible methods named after the property or its JavaBeans getter
+ * (get, is or has prefixes), matched ignoring case.
+ */
+public class BeanPropertyResolver implements PropertyResolver {
+    @Override
+    public Property bind(Class<?> type, String name, int arity) {
+        AccessorCache.Accessor accessor = AccessorCache.method(type, name, arity);
+        return accessor == null ? null : new AccessorProperty(accessor);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+/**
+ * Elements of lists and arrays by position, as in {{ list[0] }}.
+ */
+public class IndexPropertyResolver implements PropertyResolver {
+    @Override
+    public Property bind(Class<?> type, String name, int arity) {
+        if (arity != 0 || !(List.class.isAssignableFrom(type) || type.isArray()))
+            return null;
+        int index = index(name);
+        if (index < 0)
+            return null;
+        return type.isArray() ? new ArrayElement(index) : new ListElement(index);
+    }
+
+    private static int index(String name) {
+        if (name.isEmpty() || name.length() > 9)
+            return -1;
+        int index = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char digit = name.charAt(i);
+            if (digit < '0' || digit > '9')
+                return -1;
+            index = index * 10 + (digit - '0');
+        }
+        return index;
+    }
+
+    private static class ListElement implements Property {
+        private final int index;
+
+        private ListElement(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Object get(Object target, Object... arguments) {
+            List list = (List) target;
+            return index < list.size() ? list.get(index) : UNRESOLVED;
+        }
+    }
+
+    private static class ArrayElement implements Property {
+        private final int index;
+
+        private ArrayElement(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Object get(Object target, Object... arguments) {
+            return index < Array.getLength(target) ? Array.get(target, index) : UNRESOLVED;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+import java.util.Map;
+
+/**
+ * Entries of maps, when the map has the key.
+ */
+public class MapPropertyResolver implements PropertyResolver {
+    @Override
+    public Property bind(Class<?> type, String name, int arity) {
+        if (arity != 0 || !Map.class.isAssignableFrom(type))
+            return null;
+        return new MapEntry(name);
+    }
+
+    private static class MapEntry implements Property {
+        private final String key;
+
+        private MapEntry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object get(Object target, Object... arguments) {
+            Map map = (Map) target;
+            Object value = map.get(key);
+            if (value == null && !map.containsKey(key))
+                return UNRESOLVED;
+            return value;
+        }
+    }
+}
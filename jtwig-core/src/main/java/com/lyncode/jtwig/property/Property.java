@@ -0,0 +1,37 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+import com.lyncode.jtwig.exception.CalculateException;
+
+/**
+ * A property bound to a receiver class by a {@link PropertyResolver}.
+ */
+public interface Property {
+    /**
+     * Returned when the property does not apply to the given instance, so the
+     * next resolver of the chain is tried.
+     */
+    Object UNRESOLVED = new Object() {
+        @Override
+        public String toString() {
+            return "unresolved";
+        }
+    };
+
+    Object get(Object target, Object... arguments) throws CalculateException;
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+/**
+ * Resolves properties ({{ object.name }}) and method calls
+ * ({{ object.name(argument) }}) of the objects of the model.
+ *
+ * Binding happens once per receiver class, property name and number of
+ * arguments, the bound properties are then reused for every access.
+ */
+public interface PropertyResolver {
+    /**
+     * @return the bound property or null if this resolver never resolves the
+     * property for instances of the given class
+     */
+    Property bind(Class<?> type, String name, int arity);
+}
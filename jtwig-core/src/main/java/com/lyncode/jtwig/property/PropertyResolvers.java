@@ -0,0 +1,118 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.UndefinedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ordered chain of property resolvers. The properties bound for each
+ * receiver class are cached, so a chain should be created once and shared.
+ *
+ * The default chain looks at fields, methods, map entries and then list and
+ * array elements. A map without the key nor a matching member gives null.
+ */
+public class PropertyResolvers {
+    private static final PropertyResolvers DEFAULTS = new PropertyResolvers(Arrays.<PropertyResolver>asList(
+            new FieldPropertyResolver(),
+            new BeanPropertyResolver(),
+            new MapPropertyResolver(),
+            new IndexPropertyResolver()
+    ));
+
+    public static PropertyResolvers defaults() {
+        return DEFAULTS;
+    }
+
+    private final List<PropertyResolver> resolvers;
+    private final ClassValue<ConcurrentMap<String, Property[][]>> bound = new ClassValue<ConcurrentMap<String, Property[][]>>() {
+        @Override
+        protected ConcurrentMap<String, Property[][]> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    public PropertyResolvers(List<PropertyResolver> resolvers) {
+        this.resolvers = Collections.unmodifiableList(new ArrayList<>(resolvers));
+    }
+
+    /**
+     * @return a new chain trying the given resolver before the ones of this chain
+     */
+    public PropertyResolvers with(PropertyResolver resolver) {
+        List<PropertyResolver> result = new ArrayList<>();
+        result.add(resolver);
+        result.addAll(resolvers);
+        return new PropertyResolvers(result);
+    }
+
+    public List<PropertyResolver> getResolvers() {
+        return resolvers;
+    }
+
+    public Property[] bind(Class<?> type, String name, int arity) {
+        ConcurrentMap<String, Property[][]> properties = bound.get(type);
+        Property[][] byArity = properties.get(name);
+        if (byArity != null && arity < byArity.length && byArity[arity] != null)
+            return byArity[arity];
+
+        List<Property> result = new ArrayList<>();
+        for (PropertyResolver resolver : resolvers) {
+            Property property = resolver.bind(type, name, arity);
+            if (property != null)
+                result.add(property);
+        }
+        Property[][] updated = byArity == null ? new Property[arity + 1][] : Arrays.copyOf(byArity, Math.max(byArity.length, arity + 1));
+        updated[arity] = result.toArray(new Property[result.size()]);
+        properties.put(name, updated);
+        return updated[arity];
+    }
+
+    public Object resolve(Object target, String name, Object... arguments) throws CalculateException {
+        return resolve(bind(target.getClass(), name, arguments.length), target, name, arguments);
+    }
+
+    public static Object resolve(Property[] properties, Object target, String name, Object... arguments) throws CalculateException {
+        Object value = find(properties, target, arguments);
+        if (value == Property.UNRESOLVED)
+            throw new UndefinedException("Unable to find field or method " + name + " in " + target);
+        return value;
+    }
+
+    /**
+     * @return the value of the first property applying to the target or
+     * {@link Property#UNRESOLVED} if there is none
+     */
+    public static Object find(Property[] properties, Object target, Object... arguments) throws CalculateException {
+        for (Property property : properties) {
+            Object value = property.get(target, arguments);
+            if (value != Property.UNRESOLVED)
+                return value;
+        }
+        if (target instanceof Map && arguments.length == 0)
+            return null;
+        return Property.UNRESOLVED;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.render;
+
+import java.io.IOException;
+
+public class AppendableRenderStream extends RenderStream {
+    private final Appendable appendable;
+
+    public AppendableRenderStream(Appendable appendable) {
+        this.appendable = appendable;
+    }
+
+    @Override
+    public RenderStream append(CharSequence value, int start, int end) throws IOException {
+        appendable.append(value, start, end);
+        return this;
+    }
+
+    @Override
+    public RenderStream append(char value) throws IOException {
+        appendable.append(value);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return appendable.toString();
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.render;
+
+import com.lyncode.jtwig.tree.content.StaticText;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Collects rendered characters in a buffer and encodes them in blocks into
+ * a byte buffer, where static text is copied with its pre-encoded bytes.
+ * The output stream is only written when the buffers fill up or on flush.
+ *
+ * Buffers and encoders are reused across renders through a small shared
+ * pool: they are taken on the first write and given back on flush. Unlike
+ * thread locals, the pool does not pin them to (container) threads. Characters below 0x80 (0x100
+ * for ISO-8859-1) are copied as bytes for ASCII compatible charsets without
+ * going through the encoder.
+ */
+public class OutputStreamRenderStream extends RenderStream {
+    private static final int BUFFER_SIZE = 4096;
+    private static final BlockingQueue<Buffers> FREE_BUFFERS = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+    private final OutputStream outputStream;
+    private final Charset charset;
+    private final char directLimit;
+    private Buffers buffers;
+    private CharsetEncoder encoder;
+    private char[] chars;
+    private ByteBuffer bytes;
+    private int position = 0;
+
+    public OutputStreamRenderStream(OutputStream outputStream, Charset charset) {
+        this.outputStream = outputStream;
+        this.charset = charset;
+        this.directLimit = directLimit(charset);
+    }
+
+    @Override
+    public RenderStream append(CharSequence value, int start, int end) throws IOException {
+        if (chars == null)
+            acquire();
+        while (start < end) {
+            if (position == chars.length)
+                encode(false);
+            int count = Math.min(end - start, chars.length - position);
+            if (value instanceof String)
+                ((String) value).getChars(start, start + count, chars, position);
+            else if (value instanceof StringBuilder)
+                ((StringBuilder) value).getChars(start, start + count, chars, position);
+            else
+                for (int i = 0; i < count; i++)
+                    chars[position + i] = value.charAt(start + i);
+            position += count;
+            start += count;
+        }
+        return this;
+    }
+
+    @Override
+    public RenderStream append(char value) throws IOException {
+        if (chars == null)
+            acquire();
+        if (position == chars.length)
+            encode(false);
+        chars[position++] = value;
+        return this;
+    }
+
+    @Override
+    public RenderStream writeStatic(StaticText text) throws IOException {
+        byte[] encoded = text.getBytes(charset);
+        if (chars == null)
+            acquire();
+        if (position > 0)
+            encode(true);
+        if (encoded.length > bytes.remaining())
+            drain();
+        if (encoded.length > bytes.remaining())
+            outputStream.write(encoded);
+        else
+            bytes.put(encoded);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (chars != null) {
+            encode(true);
+            drain();
+            release();
+        }
+        outputStream.flush();
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        int index = 0;
+        while (index < position) {
+            index = copyDirect(index);
+            if (index == position)
+                break;
+
+            int end = index + 1;
+            while (end < position && chars[end] >= directLimit)
+                end++;
+            boolean lastOfRun = endOfInput || end < position;
+            CharBuffer input = CharBuffer.wrap(chars, index, end - index);
+            while (encoder.encode(input, bytes, lastOfRun).isOverflow())
+                drain();
+            index = input.position();
+            if (!lastOfRun)
+                break;
+            while (encoder.flush(bytes).isOverflow())
+                drain();
+            encoder.reset();
+        }
+
+        int remaining = position - index;
+        System.arraycopy(chars, index, chars, 0, remaining);
+        position = remaining;
+    }
+
+    private int copyDirect(int index) throws IOException {
+        byte[] output = bytes.array();
+        int offset = bytes.position();
+        while (index < position && chars[index] < directLimit) {
+            if (offset == output.length) {
+                bytes.position(offset);
+                drain();
+                offset = 0;
+            }
+            output[offset++] = (byte) chars[index++];
+        }
+        bytes.position(offset);
+        return index;
+    }
+
+    private void drain() throws IOException {
+        outputStream.write(bytes.array(), 0, bytes.position());
+        bytes.clear();
+    }
+
+    private void acquire() {
+        buffers = FREE_BUFFERS.poll();
+        if (buffers == null)
+            buffers = new Buffers();
+        encoder = buffers.encoder(charset);
+        chars = buffers.chars;
+        bytes = buffers.bytes;
+    }
+
+    private void release() {
+        FREE_BUFFERS.offer(buffers);
+        buffers = null;
+        encoder = null;
+        chars = null;
+        bytes = null;
+    }
+
+    private static char directLimit(Charset charset) {
+        switch (charset.name()) {
+            case "ISO-8859-1":
+                return 0x100;
+            case "US-ASCII":
+            case "UTF-8":
+                return 0x80;
+            default:
+                return 0;
+        }
+    }
+
+    private static class Buffers {
+        private final char[] chars = new char[BUFFER_SIZE];
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 2);
+        private final Map<Charset, CharsetEncoder> encoders = new HashMap<>();
+
+        private CharsetEncoder encoder(Charset charset) {
+            CharsetEncoder encoder = encoders.get(charset);
+            if (encoder == null) {
+                encoder = charset.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                encoders.put(charset, encoder);
+            }
+            return encoder;
+        }
+    }
+}
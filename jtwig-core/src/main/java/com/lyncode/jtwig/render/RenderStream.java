@@ -0,0 +1,50 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.render;
+
+import com.lyncode.jtwig.tree.content.StaticText;
+
+import java.io.IOException;
+
+/**
+ * Character sink templates render into. Implementations encode, if at all,
+ * only once at the sink instead of every node converting its own output to bytes.
+ */
+public abstract class RenderStream implements Appendable {
+    @Override
+    public RenderStream append(CharSequence value) throws IOException {
+        if (value == null)
+            return append("null", 0, 4);
+        return append(value, 0, value.length());
+    }
+
+    @Override
+    public abstract RenderStream append(CharSequence value, int start, int end) throws IOException;
+
+    @Override
+    public abstract RenderStream append(char value) throws IOException;
+
+    public RenderStream write(Object value) throws IOException {
+        return append(String.valueOf(value));
+    }
+
+    public RenderStream writeStatic(StaticText text) throws IOException {
+        return append(text.getText());
+    }
+
+    public void flush() throws IOException {}
+}
@@ -21,13 +21,18 @@ import com.lyncode.jtwig.exception.ResourceException;
 import java.io.File;
 import java.io.InputStream;
 
-public class ClasspathJtwigResource implements JtwigResource {
+public class ClasspathJtwigResource implements PathJtwigResource {
     private String resource;
 
     public ClasspathJtwigResource(String resource) {
         this.resource = resource.startsWith(File.separator) ? resource.substring(1) : resource;
     }
 
+    @Override
+    public String getPath() {
+        return resource;
+    }
+
     @Override
     public InputStream retrieve() throws ResourceException {
         return this.getClass().getClassLoader().getResourceAsStream(this.resource);
@@ -38,4 +43,21 @@ public class ClasspathJtwigResource implements JtwigResource {
         File relativeFile = new File(new File(resource).getParent(), relativePath);
         return new ClasspathJtwigResource(relativeFile.getPath());
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return resource.equals(((ClasspathJtwigResource) o).resource);
+    }
+
+    @Override
+    public int hashCode() {
+        return resource.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "classpath:" + resource;
+    }
 }
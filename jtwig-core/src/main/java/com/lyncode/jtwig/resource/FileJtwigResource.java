@@ -23,7 +23,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 
-public class FileJtwigResource implements JtwigResource {
+public class FileJtwigResource implements ModifiableJtwigResource {
     private File file;
 
     public FileJtwigResource (File file) {
@@ -39,8 +39,30 @@ public class FileJtwigResource implements JtwigResource {
         }
     }
 
+    @Override
+    public long lastModified() {
+        return file.lastModified();
+    }
+
     @Override
     public JtwigResource resolve(String relativePath) {
         return new FileJtwigResource(new File(file.getParentFile(), relativePath));
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return file.getAbsoluteFile().equals(((FileJtwigResource) o).file.getAbsoluteFile());
+    }
+
+    @Override
+    public int hashCode() {
+        return file.getAbsoluteFile().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "file:" + file.getPath();
+    }
 }
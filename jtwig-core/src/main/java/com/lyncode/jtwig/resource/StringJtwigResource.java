@@ -28,6 +28,13 @@ public class StringJtwigResource implements JtwigResource {
         this.content = content;
     }
 
+    /**
+     * The template text, parsed as it is without being encoded.
+     */
+    public String getContent() {
+        return content;
+    }
+
     @Override
     public InputStream retrieve() throws ResourceException {
         return new ByteArrayInputStream(content.getBytes());
@@ -37,4 +44,16 @@ public class StringJtwigResource implements JtwigResource {
     public JtwigResource resolve(String relativePath) throws ResourceException {
         throw new ResourceException("Cannot resolve relative resources in a String resource");
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return content.equals(((StringJtwigResource) o).content);
+    }
+
+    @Override
+    public int hashCode() {
+        return content.hashCode();
+    }
 }
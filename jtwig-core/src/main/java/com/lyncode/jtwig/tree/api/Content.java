@@ -17,15 +17,14 @@
 package com.lyncode.jtwig.tree.api;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.structural.Block;
 
-import java.io.OutputStream;
-
 public interface Content {
-    boolean render (OutputStream outputStream, JtwigContext context) throws RenderException;
-    Content compile(JtwigResource resource) throws CompileException;
+    boolean render (RenderStream renderStream, JtwigContext context) throws RenderException;
+    Content compile(CompileContext context) throws CompileException;
     boolean replace (Block expression) throws CompileException;
 }
@@ -17,8 +17,11 @@
 package com.lyncode.jtwig.tree.api;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 
 public interface Expression {
     Object calculate (JtwigContext context) throws CalculateException;
+    Expression compile (CompileContext context) throws CompileException;
 }
@@ -0,0 +1,31 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.tree.api;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.exception.CalculateException;
+
+/**
+ * Expression looking up a property, which can be probed without failing
+ * when the property does not exist.
+ */
+public interface Lookup extends Expression {
+    /**
+     * @return the value or null if some property on the way does not exist
+     */
+    Object calculateIfDefined (JtwigContext context) throws CalculateException;
+}
@@ -17,22 +17,24 @@
 package com.lyncode.jtwig.tree.content;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Expression;
 import com.lyncode.jtwig.tree.api.Tag;
 import com.lyncode.jtwig.tree.api.TagInformation;
 import com.lyncode.jtwig.tree.expressions.Variable;
+import com.lyncode.jtwig.tree.helper.VariableScope;
 import com.lyncode.jtwig.tree.structural.Block;
 
-import java.io.OutputStream;
-
 public class ForLoop implements Content, Tag {
     protected Variable variable;
+    protected Variable loopVariable = new Variable("loop");
+    protected VariableScope scope;
     protected JtwigContent content;
     protected Expression expression;
     protected TagInformation begin = new TagInformation();
@@ -43,25 +45,58 @@ public class ForLoop implements Content, Tag {
         this.expression = list;
     }
 
-
     public boolean setContent(JtwigContent content) {
         this.content = content;
         return true;
     }
 
+    public Variable getVariable() {
+        return variable;
+    }
+
+    public Variable getLoopVariable() {
+        return loopVariable;
+    }
+
+    public VariableScope getScope() {
+        return scope;
+    }
+
+    public void setScope(VariableScope scope) {
+        this.scope = scope;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public JtwigContent getContent() {
+        return content;
+    }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+        if (scope == null)
+            return renderLoop(renderStream, context);
+        context.enterScope(scope);
+        try {
+            return renderLoop(renderStream, context);
+        } finally {
+            context.exitScope(scope);
+        }
+    }
+
+    protected boolean renderLoop(RenderStream renderStream, JtwigContext context) throws RenderException {
         try {
             ObjectIterator iterator = new ObjectIterator(expression.calculate(context));
             Loop loop = new Loop(iterator.size());
-            context.set("loop", loop);
+            loopVariable.assign(context, loop);
             int index = 0;
             while (iterator.hasNext()) {
                 loop.update(index++);
                 Object object = iterator.next();
-                context.set(variable.getIdentifier(), object);
-                content.render(outputStream, context);
+                variable.assign(context, object);
+                content.render(renderStream, context);
             }
             return true;
         } catch (CalculateException e) {
@@ -70,8 +105,9 @@ public class ForLoop implements Content, Tag {
     }
 
     @Override
-    public Content compile(JtwigResource resource) throws CompileException {
-        content = content.compile(resource, begin(), end());
+    public Content compile(CompileContext context) throws CompileException {
+        expression = expression.compile(context);
+        content = content.compile(context, begin(), end());
         return this;
     }
 
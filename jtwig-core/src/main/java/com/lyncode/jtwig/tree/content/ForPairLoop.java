@@ -19,10 +19,10 @@ package com.lyncode.jtwig.tree.content;
 import com.lyncode.jtwig.JtwigContext;
 import com.lyncode.jtwig.exception.CalculateException;
 import com.lyncode.jtwig.exception.RenderException;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Expression;
 import com.lyncode.jtwig.tree.expressions.Variable;
 
-import java.io.OutputStream;
 import java.util.Map;
 
 public class ForPairLoop extends ForLoop {
@@ -33,8 +33,12 @@ public class ForPairLoop extends ForLoop {
         this.value = value;
     }
 
+    public Variable getValue() {
+        return value;
+    }
+
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    protected boolean renderLoop(RenderStream renderStream, JtwigContext context) throws RenderException {
         try {
             Object resolved = expression.calculate(context);
 
@@ -43,13 +47,13 @@ public class ForPairLoop extends ForLoop {
 
             Map map = (Map) resolved;
             Loop loop = new Loop(map.size());
-            context.set("loop", loop);
+            loopVariable.assign(context, loop);
             int index = 0;
             for (Object key : map.keySet()) {
                 loop.update(index++);
-                context.set(variable.getIdentifier(), key);
-                context.set(value.getIdentifier(), map.get(key));
-                content.render(outputStream, context);
+                variable.assign(context, key);
+                value.assign(context, map.get(key));
+                content.render(renderStream, context);
             }
             return true;
         } catch (CalculateException e) {
@@ -17,17 +17,18 @@
 package com.lyncode.jtwig.tree.content;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Expression;
 import com.lyncode.jtwig.tree.api.Tag;
 import com.lyncode.jtwig.tree.api.TagInformation;
+import com.lyncode.jtwig.tree.expressions.Constant;
 import com.lyncode.jtwig.tree.structural.Block;
 
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -69,18 +70,34 @@ public class IfExpression implements Content, Tag {
         return true;
     }
 
+    public Expression getConditionalExpression() {
+        return conditionalExpression;
+    }
+
+    public JtwigContent getContent() {
+        return content;
+    }
+
+    public List<ElseIfExpression> getElseIfExpressions() {
+        return elseIfExpressions;
+    }
+
+    public ElseExpression getElseExpression() {
+        return elseExpression;
+    }
+
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         try {
             if (isTrue(conditionalExpression.calculate(context))) {
-                return content.render(outputStream, context);
+                return content.render(renderStream, context);
             } else {
                 for (ElseIfExpression exp : elseIfExpressions) {
-                    if (exp.render(outputStream, context))
+                    if (exp.render(renderStream, context))
                         return true;
                 }
                 if (hasElse()) {
-                    return elseExpression.render(outputStream, context);
+                    return elseExpression.render(renderStream, context);
                 }
                 return true;
             }
@@ -90,14 +107,14 @@ public class IfExpression implements Content, Tag {
     }
 
     @Override
-    public IfExpression compile(JtwigResource resource) throws CompileException {
+    public Content compile(CompileContext context) throws CompileException {
         TagInformation end = end();
         if (!elseIfExpressions.isEmpty())
             end = elseIfExpressions.get(0).tag();
         else if (hasElse())
             end = elseExpression.tag();
 
-        this.content = content.compile(resource, begin(), end);
+        this.content = content.compile(context, begin(), end);
 
         int size = this.elseIfExpressions.size();
         for (int i = 0;i < size;i++) {
@@ -107,13 +124,42 @@ public class IfExpression implements Content, Tag {
             else if (hasElse())
                 end = elseExpression.tag();
             ElseIfExpression elseIfExpression = elseIfExpressions.get(i);
-            elseIfExpressions.set(i, elseIfExpression.compile(resource, elseIfExpression.tag(), end));
+            elseIfExpressions.set(i, elseIfExpression.compile(context, elseIfExpression.tag(), end));
         }
 
         if (hasElse()) {
-            elseExpression = elseExpression.compile(resource, elseExpression.tag(), end());
+            elseExpression = elseExpression.compile(context, elseExpression.tag(), end());
         }
 
+        conditionalExpression = conditionalExpression.compile(context);
+        return withoutDeadBranches();
+    }
+
+    private Content withoutDeadBranches() {
+        for (int i = 0; i < elseIfExpressions.size(); i++) {
+            Expression condition = elseIfExpressions.get(i).getCondition();
+            if (!(condition instanceof Constant))
+                continue;
+            if (isTrue(((Constant) condition).getValue())) {
+                elseExpression = new ElseExpression();
+                elseExpression.setContent(elseIfExpressions.get(i).getContent());
+                elseIfExpressions.subList(i, elseIfExpressions.size()).clear();
+            } else
+                elseIfExpressions.remove(i--);
+        }
+
+        while (conditionalExpression instanceof Constant) {
+            if (isTrue(((Constant) conditionalExpression).getValue()))
+                return content;
+            if (!elseIfExpressions.isEmpty()) {
+                ElseIfExpression next = elseIfExpressions.remove(0);
+                conditionalExpression = next.getCondition();
+                content = next.getContent();
+            } else if (hasElse())
+                return elseExpression.getContent();
+            else
+                return new JtwigContent();
+        }
         return this;
     }
 
@@ -148,15 +194,19 @@ public class IfExpression implements Content, Tag {
             return true;
         }
 
-        public Content getContent() {
+        public JtwigContent getContent() {
             return content;
         }
 
+        public Expression getCondition() {
+            return condition;
+        }
+
         @Override
-        public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+        public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
             try {
                 if (isTrue(condition.calculate(context))) {
-                    return content.render(outputStream, context);
+                    return content.render(renderStream, context);
                 }
                 return false;
             } catch (CalculateException e) {
@@ -165,14 +215,15 @@ public class IfExpression implements Content, Tag {
         }
 
         @Override
-        public ElseIfExpression compile(JtwigResource resource) throws CompileException {
-            content = content.compile(resource);
+        public ElseIfExpression compile(CompileContext context) throws CompileException {
+            condition = condition.compile(context);
+            content = content.compile(context);
             return this;
         }
 
-
-        public ElseIfExpression compile(JtwigResource resource, TagInformation begin, TagInformation end) throws CompileException {
-            content = content.compile(resource, begin, end);
+        public ElseIfExpression compile(CompileContext context, TagInformation begin, TagInformation end) throws CompileException {
+            condition = condition.compile(context);
+            content = content.compile(context, begin, end);
             return this;
         }
 
@@ -195,20 +246,24 @@ public class IfExpression implements Content, Tag {
             return true;
         }
 
+        public JtwigContent getContent() {
+            return content;
+        }
+
         @Override
-        public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
-            content.render(outputStream, context);
+        public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+            content.render(renderStream, context);
             return true;
         }
 
         @Override
-        public ElseExpression compile(JtwigResource resource) throws CompileException {
-            content = content.compile(resource);
+        public ElseExpression compile(CompileContext context) throws CompileException {
+            content = content.compile(context);
             return this;
         }
 
-        public ElseExpression compile(JtwigResource resource, TagInformation begin, TagInformation end) throws CompileException {
-            content = content.compile(resource, begin, end);
+        public ElseExpression compile(CompileContext context, TagInformation begin, TagInformation end) throws CompileException {
+            content = content.compile(context, begin, end);
             return this;
         }
 
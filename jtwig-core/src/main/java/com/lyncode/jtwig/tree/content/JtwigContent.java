@@ -17,15 +17,15 @@
 package com.lyncode.jtwig.tree.content;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Tag;
 import com.lyncode.jtwig.tree.api.TagInformation;
 import com.lyncode.jtwig.tree.structural.Block;
 
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,19 +35,19 @@ public class JtwigContent implements Content {
     private List<Content> contents = new ArrayList<>();
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         for (Content content : contents) {
-            content.render(outputStream, context);
+            content.render(renderStream, context);
         }
         return true;
     }
 
     @Override
-    public JtwigContent compile(JtwigResource resource) throws CompileException {
-        return compile(resource, new TagInformation(), new TagInformation());
+    public JtwigContent compile(CompileContext context) throws CompileException {
+        return compile(context, new TagInformation(), new TagInformation());
     }
 
-    public JtwigContent compile(JtwigResource resource, TagInformation begin, TagInformation end) throws CompileException {
+    public JtwigContent compile(CompileContext context, TagInformation begin, TagInformation end) throws CompileException {
         for (int i = 0; i < contents.size(); i++) {
             Content content = contents.get(i);
             if (content instanceof Text) {
@@ -58,8 +58,9 @@ public class JtwigContent implements Content {
                 if (mustTrimRight(i, end))
                     text.trimRight();
             }
-            contents.set(i, content.compile(resource));
         }
+        for (int i = 0; i < contents.size(); i++)
+            contents.set(i, contents.get(i).compile(context));
         return this;
     }
 
@@ -102,4 +103,8 @@ public class JtwigContent implements Content {
         contents.add(content);
         return this;
     }
+
+    public List<Content> getContents() {
+        return contents;
+    }
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.tree.content;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.RenderException;
+import com.lyncode.jtwig.render.RenderStream;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.structural.Block;
+
+/**
+ * Root of a template using local variables, see
+ * {@link com.lyncode.jtwig.compile.LocalSlots}. Renders its content within a
+ * fresh frame of the given number of slots.
+ */
+public final class LocalFrame implements Content {
+    private final Content content;
+    private final int size;
+
+    public LocalFrame(Content content, int size) {
+        this.content = content;
+        this.size = size;
+    }
+
+    public Content getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+        Object[] previous = context.enterFrame(size);
+        try {
+            return content.render(renderStream, context);
+        } finally {
+            context.exitFrame(previous);
+        }
+    }
+
+    @Override
+    public Content compile(CompileContext context) throws CompileException {
+        return this;
+    }
+
+    @Override
+    public boolean replace(Block expression) throws CompileException {
+        return false;
+    }
+}
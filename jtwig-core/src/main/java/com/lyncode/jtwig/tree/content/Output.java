@@ -17,18 +17,25 @@
 package com.lyncode.jtwig.tree.content;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Expression;
 import com.lyncode.jtwig.tree.api.Tag;
 import com.lyncode.jtwig.tree.api.TagInformation;
+import com.lyncode.jtwig.tree.api.Writable;
+import com.lyncode.jtwig.tree.expressions.AutoEscape;
+import com.lyncode.jtwig.tree.expressions.Composition;
+import com.lyncode.jtwig.tree.expressions.Constant;
+import com.lyncode.jtwig.tree.expressions.OperationUnary;
+import com.lyncode.jtwig.tree.helper.StrictBinaryOperation;
 import com.lyncode.jtwig.tree.structural.Block;
 
 import java.io.IOException;
-import java.io.OutputStream;
 
 public class Output implements Content, Tag {
     private Expression expression;
@@ -44,9 +51,12 @@ public class Output implements Content, Tag {
     }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         try {
-            outputStream.write(String.valueOf(expression.calculate(context)).getBytes());
+            if (expression instanceof Writable)
+                ((Writable) expression).write(renderStream, context);
+            else
+                renderStream.write(expression.calculate(context));
             return true;
         } catch (IOException | CalculateException e) {
             throw new RenderException(e);
@@ -54,10 +64,26 @@ public class Output implements Content, Tag {
     }
 
     @Override
-    public Output compile(JtwigResource resource) throws CompileException {
+    public Content compile(CompileContext context) throws CompileException {
+        expression = expression.compile(context);
+        if (expression instanceof Constant)
+            return new StaticText(String.valueOf(((Constant) expression).getValue()), context.getConfiguration().getOutputCharset());
+        EscapeStrategy autoescape = context.getConfiguration().getAutoescape();
+        if (autoescape != null && !isSafe(expression, context))
+            expression = new AutoEscape(expression, autoescape);
         return this;
     }
 
+    private static boolean isSafe(Expression expression, CompileContext context) {
+        if (expression instanceof AutoEscape || expression instanceof OperationUnary)
+            return true;
+        if (expression instanceof StrictBinaryOperation)
+            return ((StrictBinaryOperation) expression).isSafe(context);
+        if (expression instanceof Composition)
+            return ((Composition) expression).isSafe(context);
+        return false;
+    }
+
     @Override
     public boolean replace(Block expression) throws CompileException {
         return false;
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.tree.content;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.RenderException;
+import com.lyncode.jtwig.render.RenderStream;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.helper.VariableScope;
+import com.lyncode.jtwig.tree.structural.Block;
+
+/**
+ * Content of an included template. Variables it assigns are not visible to
+ * the including template once it has been rendered.
+ */
+public class ScopedContent implements Content {
+    private Content content;
+    private VariableScope scope;
+
+    public ScopedContent(Content content) {
+        this.content = content;
+    }
+
+    public Content getContent() {
+        return content;
+    }
+
+    public void setContent(Content content) {
+        this.content = content;
+    }
+
+    public VariableScope getScope() {
+        return scope;
+    }
+
+    public void setScope(VariableScope scope) {
+        this.scope = scope;
+    }
+
+    @Override
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+        if (scope == null)
+            return content.render(renderStream, context);
+        context.enterScope(scope);
+        try {
+            return content.render(renderStream, context);
+        } finally {
+            context.exitScope(scope);
+        }
+    }
+
+    @Override
+    public Content compile(CompileContext context) throws CompileException {
+        content = content.compile(context);
+        return this;
+    }
+
+    @Override
+    public boolean replace(Block expression) throws CompileException {
+        return content.replace(expression);
+    }
+}
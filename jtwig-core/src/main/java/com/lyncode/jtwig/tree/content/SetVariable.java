@@ -17,10 +17,11 @@
 package com.lyncode.jtwig.tree.content;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Expression;
 import com.lyncode.jtwig.tree.api.Tag;
@@ -28,8 +29,6 @@ import com.lyncode.jtwig.tree.api.TagInformation;
 import com.lyncode.jtwig.tree.expressions.Variable;
 import com.lyncode.jtwig.tree.structural.Block;
 
-import java.io.OutputStream;
-
 public class SetVariable implements Content, Tag {
     private Variable name;
     private Expression assignment;
@@ -54,9 +53,9 @@ public class SetVariable implements Content, Tag {
     }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         try {
-            context.set(name.getIdentifier(), assignment.calculate(context));
+            name.assign(context, assignment.calculate(context));
             return true;
         } catch (CalculateException e) {
             throw new RenderException(e);
@@ -64,7 +63,8 @@ public class SetVariable implements Content, Tag {
     }
 
     @Override
-    public SetVariable compile(JtwigResource resource) throws CompileException {
+    public SetVariable compile(CompileContext context) throws CompileException {
+        assignment = assignment.compile(context);
         return this;
     }
 
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.tree.content;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.RenderException;
+import com.lyncode.jtwig.render.RenderStream;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.structural.Block;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled form of {@link Text}. Keeps the final text together with its
+ * encoded bytes, so byte oriented streams write it without encoding it again.
+ * Streams using another charset than the compile time one get their bytes
+ * cached separately.
+ */
+public final class StaticText implements Content {
+    private final String text;
+    private final Charset charset;
+    private final byte[] bytes;
+    private volatile Map<Charset, byte[]> encodings;
+
+    public StaticText(String text) {
+        this(text, null);
+    }
+
+    public StaticText(String text, Charset charset) {
+        this.text = text;
+        this.charset = charset;
+        this.bytes = charset == null ? null : text.getBytes(charset);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public byte[] getBytes(Charset charset) {
+        if (charset.equals(this.charset))
+            return bytes;
+        Map<Charset, byte[]> current = encodings;
+        if (current == null) {
+            current = new ConcurrentHashMap<>(2);
+            encodings = current;
+        }
+        byte[] encoded = current.get(charset);
+        if (encoded == null) {
+            encoded = text.getBytes(charset);
+            current.put(charset, encoded);
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+        try {
+            renderStream.writeStatic(this);
+            return true;
+        } catch (IOException e) {
+            throw new RenderException(e);
+        }
+    }
+
+    @Override
+    public Content compile(CompileContext context) throws CompileException {
+        return this;
+    }
+
+    @Override
+    public boolean replace(Block expression) throws CompileException {
+        return false;
+    }
+
+    public String toString () {
+        return "Text: " + text;
+    }
+}
@@ -17,21 +17,20 @@
 package com.lyncode.jtwig.tree.content;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.structural.Block;
 
 import java.io.IOException;
-import java.io.OutputStream;
 
 public class Text implements Content {
     private StringBuilder builder = new StringBuilder();
     private boolean trimLeft = false;
     private boolean trimRight = false;
 
-
     public Text() {
     }
 
@@ -49,9 +48,9 @@ public class Text implements Content {
     }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         try {
-            outputStream.write(builder.toString().getBytes());
+            renderStream.append(builder);
             return true;
         } catch (IOException e) {
             throw new RenderException(e);
@@ -59,13 +58,13 @@ public class Text implements Content {
     }
 
     @Override
-    public Content compile(JtwigResource resource) throws CompileException {
+    public Content compile(CompileContext context) throws CompileException {
         String result = getText();
         if (trimLeft)
             result = result.replaceAll("^\\s+", "");
         if (trimRight)
             result = result.replaceAll("\\s+$", "");
-        return new Text(result);
+        return new StaticText(result, context.getConfiguration().getOutputCharset());
     }
 
     @Override
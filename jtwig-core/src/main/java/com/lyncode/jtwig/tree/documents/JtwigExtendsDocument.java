@@ -17,17 +17,18 @@
 package com.lyncode.jtwig.tree.documents;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.ParseException;
 import com.lyncode.jtwig.exception.RenderException;
 import com.lyncode.jtwig.exception.ResourceException;
 import com.lyncode.jtwig.parser.JtwigParser;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.resource.JtwigResource;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.structural.Block;
 import com.lyncode.jtwig.tree.structural.Extends;
 
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,19 +46,20 @@ public class JtwigExtendsDocument implements JtwigDocument {
     }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         return false;
     }
 
     @Override
-    public Content compile(JtwigResource resource) throws CompileException {
+    public Content compile(CompileContext context) throws CompileException {
         try {
             for (int i = 0; i < blocks.size(); i++)
-                blocks.set(i, blocks.get(i).compile(resource));
+                blocks.set(i, blocks.get(i).compile(context));
 
-            JtwigResource jtwigResource = resource.resolve(anExtends.getPath());
+            JtwigResource jtwigResource = context.getResource().resolve(anExtends.getPath());
 
-            Content content = JtwigParser.parse(jtwigResource).compile(jtwigResource);
+            Content content = JtwigParser.parse(jtwigResource, context.getConfiguration().getSourceCharset())
+                    .compile(context.withResource(jtwigResource));
             for (Block expression : blocks) {
                 content.replace(expression);
             }
@@ -17,14 +17,13 @@
 package com.lyncode.jtwig.tree.documents;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.structural.Block;
 
-import java.io.OutputStream;
-
 public class JtwigRootDocument implements JtwigDocument {
     private Content content;
 
@@ -37,13 +36,13 @@ public class JtwigRootDocument implements JtwigDocument {
     }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         return false;
     }
 
     @Override
-    public Content compile(JtwigResource resource) throws CompileException {
-        return content.compile(resource);
+    public Content compile(CompileContext context) throws CompileException {
+        return content.compile(context);
     }
 
     @Override
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.tree.expressions;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy;
+import com.lyncode.jtwig.functions.util.Escaper;
+import com.lyncode.jtwig.functions.util.SafeString;
+import com.lyncode.jtwig.render.RenderStream;
+import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.api.ExpressionWrapper;
+import com.lyncode.jtwig.tree.api.Writable;
+
+import java.io.IOException;
+
+/**
+ * Escapes the value of an output when autoescaping, the strategy is chosen
+ * when the template is compiled. Numbers, booleans and safe strings are
+ * written as they are.
+ */
+public class AutoEscape implements Writable, ExpressionWrapper {
+    private final Expression expression;
+    private final EscapeStrategy strategy;
+    private final Escaper escaper;
+
+    public AutoEscape(Expression expression, EscapeStrategy strategy) {
+        this.expression = expression;
+        this.strategy = strategy;
+        this.escaper = strategy.getEscaper();
+    }
+
+    @Override
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public EscapeStrategy getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        Expression compiled = expression.compile(context);
+        if (compiled == expression)
+            return this;
+        return new AutoEscape(compiled, strategy);
+    }
+
+    @Override
+    public Object calculate(JtwigContext context) throws CalculateException {
+        Object value = expression.calculate(context);
+        if (isSafe(value))
+            return value;
+        return escaper.escape(value.toString());
+    }
+
+    @Override
+    public void write(RenderStream output, JtwigContext context) throws CalculateException, IOException {
+        write(output, expression.calculate(context));
+    }
+
+    public void write(RenderStream output, Object value) throws IOException {
+        if (isSafe(value))
+            output.write(value);
+        else if (value instanceof CharSequence)
+            escaper.escape((CharSequence) value, output);
+        else
+            escaper.escape(value.toString(), output);
+    }
+
+    private static boolean isSafe(Object value) {
+        return value == null
+                || value instanceof SafeString
+                || value instanceof Number
+                || value instanceof Boolean;
+    }
+
+    public String toString() {
+        return "Escaped " + expression;
+    }
+}
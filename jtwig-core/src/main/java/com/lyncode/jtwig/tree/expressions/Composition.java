@@ -16,17 +16,22 @@
 
 package com.lyncode.jtwig.tree.expressions;
 
-import com.lyncode.builder.ListBuilder;
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
-import com.lyncode.jtwig.functions.exceptions.FunctionNotFoundException;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.api.Lookup;
+import com.lyncode.jtwig.tree.api.Writable;
+import com.lyncode.jtwig.util.ConstantFolder;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class Composition implements Expression {
+public class Composition implements Writable {
     private Expression expression;
     private List<FunctionElement> filters = new ArrayList<FunctionElement>();
 
@@ -34,6 +39,14 @@ public class Composition implements Expression {
         this.expression = expression;
     }
 
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public List<FunctionElement> getFilters() {
+        return filters;
+    }
+
     public boolean add (Object functionElement) {
         if (functionElement instanceof FunctionElement)
             this.filters.add((FunctionElement) functionElement);
@@ -44,23 +57,71 @@ public class Composition implements Expression {
         return true;
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        expression = expression.compile(context);
+        for (FunctionElement filter : filters)
+            filter.compileArguments(context);
+        bind(context);
+        return isConstant() ? ConstantFolder.fold(this) : this;
+    }
+
+    public void bind(CompileContext context) throws CompileException {
+        for (FunctionElement filter : filters)
+            filter.bind(context, filter.getArguments().size() + 1);
+    }
+
+    /**
+     * A constant filtered only by pure functions with constant arguments.
+     */
+    public boolean isConstant() {
+        if (!(expression instanceof Constant))
+            return false;
+        for (FunctionElement filter : filters) {
+            if (!filter.isPure() || !filter.hasConstantArguments())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ends with a filter declared safe, such as escape or raw.
+     */
+    public boolean isSafe(CompileContext context) {
+        return !filters.isEmpty() && context.isSafe(filters.get(filters.size() - 1).getName());
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         try {
-            Object resolved = expression.calculate(context);
-            for (FunctionElement functionElement : filters) {
-                List<Object> arguments = new ListBuilder<Object>()
-                        .add(resolved)
-                        .add(functionElement.getArguments().calculate(context).toArray())
-                        .build();
-                resolved = context.function(functionElement.getName()).execute(arguments.toArray());
-            }
-            return resolved;
+            return apply(filters.size(), context);
         } catch (FunctionException e) {
             throw new CalculateException(e);
-        } catch (FunctionNotFoundException e) {
+        }
+    }
+
+    @Override
+    public void write(RenderStream output, JtwigContext context) throws CalculateException, IOException {
+        if (filters.isEmpty()) {
+            output.write(calculate(context));
+            return;
+        }
+        try {
+            int last = filters.size() - 1;
+            filters.get(last).write(apply(last, context), output, context);
+        } catch (FunctionException e) {
             throw new CalculateException(e);
         }
+    }
+
+    private Object apply(int count, JtwigContext context) throws CalculateException, FunctionException {
+        Object resolved = probesUndefined() ? ((Lookup) expression).calculateIfDefined(context) : expression.calculate(context);
+        for (int i = 0; i < count; i++)
+            resolved = filters.get(i).apply(resolved, context);
+        return resolved;
+    }
 
+    private boolean probesUndefined() {
+        return expression instanceof Lookup && !filters.isEmpty() && filters.get(0).probesUndefined();
     }
 }
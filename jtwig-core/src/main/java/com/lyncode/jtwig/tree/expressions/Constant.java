@@ -17,7 +17,9 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.tree.api.Expression;
 
 public class Constant<T> implements Expression {
@@ -43,6 +45,11 @@ public class Constant<T> implements Expression {
         return value == null;
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        return this;
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         return value;
@@ -17,17 +17,34 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.UndefinedException;
+import com.lyncode.jtwig.functions.AppendingFunction;
+import com.lyncode.jtwig.functions.Function0;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.Function3;
+import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
-import com.lyncode.jtwig.functions.exceptions.FunctionNotFoundException;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Element;
 import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.util.ConstantFolder;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
 
 public class FunctionElement implements Element, Expression {
     private String name;
     private ValueList arguments;
+    private JtwigFunction function;
+    private boolean pure;
+    private boolean memoized;
+    private boolean probesUndefined;
 
     public FunctionElement(String name, Expression argument) {
         this.name = name;
@@ -56,18 +73,193 @@ public class FunctionElement implements Element, Expression {
         return name+arguments;
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        arguments.compile(context);
+        bind(context, arguments.size());
+        if (pure && hasConstantArguments())
+            return ConstantFolder.fold(this);
+        return this;
+    }
+
+    /**
+     * Compiles the arguments only. Method calls are never bound, filters and
+     * tests are bound by their composition, which also passes the input.
+     */
+    public FunctionElement compileArguments(CompileContext context) throws CompileException {
+        arguments.compile(context);
+        return this;
+    }
+
+    public static Expression compileUnbound(Expression expression, CompileContext context) throws CompileException {
+        if (expression instanceof FunctionElement)
+            return ((FunctionElement) expression).compileArguments(context);
+        return expression.compile(context);
+    }
+
+    public void bind(CompileContext context, int arity) throws CompileException {
+        function = context.function(name);
+        if (function instanceof TypedFunction && !((TypedFunction) function).accepts(arity))
+            throw new CompileException("Function " + name + " called with " + arity + " arguments, it accepts " + ((TypedFunction) function).arities());
+        pure = function != null && context.isPure(function);
+        memoized = function != null && context.isMemoizing(function);
+        probesUndefined = context.probesUndefined(name);
+    }
+
+    /**
+     * Whether this call is bound to a pure function.
+     */
+    public boolean isPure() {
+        return pure;
+    }
+
+    /**
+     * Whether this call is to a function declared to probe for undefined values.
+     */
+    public boolean probesUndefined() {
+        return probesUndefined;
+    }
+
+    public boolean hasConstantArguments() {
+        for (int i = 0; i < arguments.size(); i++) {
+            if (!(arguments.get(i) instanceof Constant))
+                return false;
+        }
+        return true;
+    }
+
+    public JtwigFunction function(JtwigContext context) throws UndefinedException {
+        if (function != null)
+            return function;
+        return context.function(name);
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         try {
-            return context.function(getName()).execute(arguments(context));
+            if (memoized)
+                return memoize(values(context), context);
+            return invoke(function(context), context);
         } catch (FunctionException e) {
             throw new CalculateException(e);
-        } catch (FunctionNotFoundException e) {
-            throw new CalculateException(e);
         }
     }
 
-    private Object[] arguments(JtwigContext context) throws CalculateException {
-        return ((List<?>) arguments.calculate(context)).toArray();
+    /**
+     * Applies this function as a filter or test, with input as its first argument.
+     */
+    public Object apply(Object input, JtwigContext context) throws CalculateException, FunctionException {
+        if (memoized)
+            return memoize(values(input, context), context);
+        JtwigFunction function = function(context);
+        switch (arguments.size()) {
+            case 0:
+                if (function instanceof Function1)
+                    return ((Function1) function).apply(input);
+                break;
+            case 1:
+                if (function instanceof Function2)
+                    return ((Function2) function).apply(input, argument(0, context));
+                break;
+            case 2:
+                if (function instanceof Function3)
+                    return ((Function3) function).apply(input, argument(0, context), argument(1, context));
+                break;
+        }
+        return function.execute(values(input, context));
+    }
+
+    /**
+     * Writes the result of applying this filter to the output, appending
+     * it directly when the function supports it.
+     */
+    public void write(Object input, RenderStream output, JtwigContext context) throws CalculateException, FunctionException, IOException {
+        JtwigFunction function = memoized ? null : function(context);
+        if (function instanceof AppendingFunction && arguments.size() == 0)
+            ((AppendingFunction) function).append(output, input);
+        else if (function instanceof AppendingFunction && arguments.size() == 1)
+            ((AppendingFunction) function).append(output, input, argument(0, context));
+        else
+            output.write(apply(input, context));
+    }
+
+    private Object invoke(JtwigFunction function, JtwigContext context) throws CalculateException, FunctionException {
+        switch (arguments.size()) {
+            case 0:
+                if (function instanceof Function0)
+                    return ((Function0) function).apply();
+                break;
+            case 1:
+                if (function instanceof Function1)
+                    return ((Function1) function).apply(argument(0, context));
+                break;
+            case 2:
+                if (function instanceof Function2)
+                    return ((Function2) function).apply(argument(0, context), argument(1, context));
+                break;
+            case 3:
+                if (function instanceof Function3)
+                    return ((Function3) function).apply(argument(0, context), argument(1, context), argument(2, context));
+                break;
+        }
+        return function.execute(values(context));
+    }
+
+    private Object memoize(Object[] values, JtwigContext context) throws FunctionException {
+        for (Object value : values) {
+            if (!ConstantFolder.isImmutable(value))
+                return function.execute(values);
+        }
+        Call call = new Call(function, values);
+        Map<Object, Object> memo = context.memo();
+        Object result = memo.get(call);
+        if (result == null && !memo.containsKey(call)) {
+            result = function.execute(values);
+            if (ConstantFolder.isImmutable(result))
+                memo.put(call, result);
+        }
+        return result;
+    }
+
+    private Object[] values(JtwigContext context) throws CalculateException {
+        Object[] values = new Object[arguments.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = argument(i, context);
+        return values;
+    }
+
+    private Object[] values(Object input, JtwigContext context) throws CalculateException {
+        Object[] values = new Object[arguments.size() + 1];
+        values[0] = input;
+        for (int i = 0; i < arguments.size(); i++)
+            values[i + 1] = argument(i, context);
+        return values;
+    }
+
+    private Object argument(int index, JtwigContext context) throws CalculateException {
+        return arguments.get(index).calculate(context);
+    }
+
+    private static final class Call {
+        private final JtwigFunction function;
+        private final Object[] arguments;
+
+        private Call(JtwigFunction function, Object[] arguments) {
+            this.function = function;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Call))
+                return false;
+            Call call = (Call) other;
+            return function == call.function && Arrays.equals(arguments, call.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(function) + Arrays.hashCode(arguments);
+        }
     }
 }
@@ -17,7 +17,9 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.tree.api.Expression;
 
 import java.util.Map;
@@ -31,12 +33,28 @@ public class MapSelection implements Expression {
         this.key = key;
     }
 
+    public Variable getVariable() {
+        return variable;
+    }
+
+    public Expression getKey() {
+        return key;
+    }
+
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        key = key.compile(context);
+        return this;
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         Object resolved = variable.calculate(context);
         if (resolved instanceof Map)
             return ((Map) resolved).get(key.calculate(context));
+        else if (resolved != null)
+            return context.getPropertyResolvers().resolve(resolved, String.valueOf(key.calculate(context)));
         else
-            throw new CalculateException("Invalid input. Should be given a Map but a "+resolved.getClass().getName()+" was given.");
+            throw new CalculateException("Invalid input. Should be given a Map but null was given.");
     }
 }
@@ -17,7 +17,9 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.tree.api.Expression;
 import com.lyncode.jtwig.tree.helper.StrictBinaryOperation;
 import org.apache.commons.lang3.StringUtils;
@@ -25,6 +27,9 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.lyncode.jtwig.util.ConstantFolder.areConstant;
+import static com.lyncode.jtwig.util.ConstantFolder.fold;
+
 public class OperationBinary implements Expression {
     private ValueList operands = new ValueList();
     private List<Operator> operators = new ArrayList<Operator>();
@@ -72,6 +77,58 @@ public class OperationBinary implements Expression {
             return element.toString();
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        compileOperands(context);
+        if (operators.isEmpty())
+            return operands.first();
+
+        Expression folded = operands.first();
+        int index = 0;
+        while (index < operators.size() && areConstant(folded, operands.get(index + 1))) {
+            OperationBinary operation = new OperationBinary(folded);
+            operation.addOperator(operators.get(index));
+            operation.add(operands.get(index + 1));
+            Expression result = fold(operation, folded, operands.get(index + 1));
+            if (!(result instanceof Constant))
+                break;
+            folded = result;
+            index++;
+        }
+        if (index == 0)
+            return StrictBinaryOperation.create(this, context);
+        if (index == operators.size())
+            return folded;
+
+        OperationBinary rest = new OperationBinary(folded);
+        for (int i = index; i < operators.size(); i++) {
+            rest.addOperator(operators.get(i));
+            rest.add(operands.get(i + 1));
+        }
+        return StrictBinaryOperation.create(rest, context);
+    }
+
+    private void compileOperands(CompileContext context) throws CompileException {
+        for (int i = 0; i < operands.size(); i++) {
+            if (i > 0 && bindsRight(operators.get(i - 1)))
+                operands.set(i, FunctionElement.compileUnbound(operands.get(i), context));
+            else
+                operands.set(i, operands.get(i).compile(context));
+        }
+    }
+
+    private static boolean bindsRight(Operator operator) {
+        switch (operator) {
+            case SELECTION:
+            case COMPOSITION:
+            case IS:
+            case IS_NOT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         return StrictBinaryOperation.create(this).calculate(context);
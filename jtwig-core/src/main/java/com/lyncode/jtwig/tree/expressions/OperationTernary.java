@@ -17,7 +17,9 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.tree.api.Expression;
 
 import static com.lyncode.jtwig.util.BooleanOperations.isTrue;
@@ -41,6 +43,28 @@ public class OperationTernary implements Expression {
         return true;
     }
 
+    public Expression getBooleanExpression() {
+        return booleanExpression;
+    }
+
+    public Expression getIfTrueExpression() {
+        return ifTrueExpression;
+    }
+
+    public Expression getIfFalseExpression() {
+        return ifFalseExpression;
+    }
+
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        booleanExpression = booleanExpression.compile(context);
+        ifTrueExpression = ifTrueExpression.compile(context);
+        ifFalseExpression = ifFalseExpression.compile(context);
+        if (booleanExpression instanceof Constant)
+            return isTrue(((Constant) booleanExpression).getValue()) ? ifTrueExpression : ifFalseExpression;
+        return this;
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         if (isTrue(booleanExpression.calculate(context)))
@@ -17,10 +17,14 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.tree.api.Expression;
 import com.lyncode.jtwig.util.BooleanOperations;
 
+import static com.lyncode.jtwig.util.ConstantFolder.fold;
+
 public class OperationUnary implements Expression {
     private Operator operator;
     private Expression operand;
@@ -46,6 +50,12 @@ public class OperationUnary implements Expression {
         return operator.toString() + operand.toString();
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        operand = operand.compile(context);
+        return fold(this, operand);
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         switch (operator) {
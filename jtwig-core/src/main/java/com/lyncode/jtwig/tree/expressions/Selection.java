@@ -17,44 +17,93 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.UndefinedException;
+import com.lyncode.jtwig.property.Property;
 import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.api.Lookup;
 import com.lyncode.jtwig.tree.helper.ElementList;
-import com.lyncode.jtwig.util.ObjectExtractor;
+import com.lyncode.jtwig.util.PropertyCallSite;
 
 import java.util.List;
 
-public class Selection extends ElementList implements Expression {
+public class Selection extends ElementList implements Lookup {
+    private volatile PropertyCallSite[] callSites;
+
     public Selection(Object... list) {
         super(list);
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        List<Object> list = getList();
+        for (int i = 0; i < list.size(); i++) {
+            if (!(list.get(i) instanceof Expression))
+                continue;
+            Expression element = (Expression) list.get(i);
+            list.set(i, i == 0 ? element.compile(context) : FunctionElement.compileUnbound(element, context));
+        }
+        return this;
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
+        return calculate(context, false);
+    }
+
+    @Override
+    public Object calculateIfDefined(JtwigContext context) throws CalculateException {
+        return calculate(context, true);
+    }
+
+    private Object calculate(JtwigContext context, boolean probe) throws CalculateException {
+        List<Object> list = getList();
+        PropertyCallSite[] sites = callSites(list);
         Object contextObject = null;
-        for (Object obj : getList()) {
+        for (int i = 0; i < list.size(); i++) {
+            Object obj = list.get(i);
             if (contextObject == null) contextObject = resolve(obj, context);
             else {
-                ObjectExtractor objectExtractor = new ObjectExtractor(contextObject);
+                Object value = contextObject;
                 if (obj instanceof Variable) {
-                    try {
-                        contextObject = objectExtractor.extract(((Variable) obj).getIdentifier());
-                    } catch (ObjectExtractor.ExtractException e) {
-                        throw new CalculateException(e);
-                    }
+                    value = sites[i].find(context.getPropertyResolvers(), contextObject);
                 } else if (obj instanceof FunctionElement) {
-                    try {
-                        List<?> arguments = (List<?>) ((FunctionElement) obj).getArguments().calculate(context);
-                        contextObject = objectExtractor.extract(((FunctionElement) obj).getName(), arguments.toArray());
-                    } catch (ObjectExtractor.ExtractException e) {
-                        throw new CalculateException(e);
-                    }
+                    List<?> arguments = (List<?>) ((FunctionElement) obj).getArguments().calculate(context);
+                    value = sites[i].find(context.getPropertyResolvers(), contextObject, arguments.toArray());
+                }
+                if (value == Property.UNRESOLVED) {
+                    if (probe) return null;
+                    throw new UndefinedException("Unable to find field or method " + name(obj) + " in " + contextObject);
                 }
+                contextObject = value;
             }
         }
         return contextObject;
     }
 
+    private String name(Object element) {
+        if (element instanceof Variable)
+            return ((Variable) element).getIdentifier();
+        return ((FunctionElement) element).getName();
+    }
+
+    private PropertyCallSite[] callSites(List<Object> list) {
+        PropertyCallSite[] sites = callSites;
+        if (sites == null || sites.length != list.size()) {
+            sites = new PropertyCallSite[list.size()];
+            for (int i = 0; i < sites.length; i++) {
+                if (list.get(i) instanceof Variable)
+                    sites[i] = new PropertyCallSite(((Variable) list.get(i)).getIdentifier(), 0);
+                else if (list.get(i) instanceof FunctionElement)
+                    sites[i] = new PropertyCallSite(((FunctionElement) list.get(i)).getName(), ((FunctionElement) list.get(i)).getArguments().size());
+            }
+            callSites = sites;
+        }
+        return sites;
+    }
+
     private Object resolve(Object obj, JtwigContext context) throws CalculateException {
         if (obj instanceof Expression)
             return ((Expression) obj).calculate(context);
@@ -17,7 +17,9 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.ParseBypassException;
 import com.lyncode.jtwig.exception.ParseException;
 import com.lyncode.jtwig.tree.api.Expression;
@@ -70,6 +72,13 @@ public class ValueList implements Expression {
     }
 
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        for (int i = 0; i < values.size(); i++)
+            values.set(i, values.get(i).compile(context));
+        return this;
+    }
+
     @Override
     public List<Object> calculate(JtwigContext context) throws CalculateException {
         List<Object> result = new ArrayList<Object>();
@@ -86,6 +95,10 @@ public class ValueList implements Expression {
         return values.get(index);
     }
 
+    public void set(int index, Expression element) {
+        values.set(index, element);
+    }
+
     public boolean isEmpty() {
         return values.isEmpty();
     }
@@ -17,7 +17,9 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.tree.api.Element;
 import com.lyncode.jtwig.tree.api.Expression;
 
@@ -50,6 +52,15 @@ public class ValueMap implements Element, Expression {
         return join(parts, ", ");
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getValue() instanceof Expression)
+                entry.setValue(((Expression) entry.getValue()).compile(context));
+        }
+        return this;
+    }
+
     @Override
     public Object calculate(JtwigContext context) throws CalculateException {
         Map<String, Object> result = new HashMap<String, Object>();
@@ -17,11 +17,14 @@
 package com.lyncode.jtwig.tree.expressions;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.tree.api.Element;
 import com.lyncode.jtwig.tree.api.Expression;
 
 public class Variable implements Element, Expression {
     private String identifier;
+    private int slot = -1;
 
     public Variable(String identifier) {
         this.identifier = identifier;
@@ -31,12 +34,37 @@ public class Variable implements Element, Expression {
         return identifier;
     }
 
+    /**
+     * @return the frame slot of this variable or -1 if it is read from the model
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    public void assign(JtwigContext context, Object value) {
+        if (slot < 0)
+            context.set(identifier, value);
+        else
+            context.setLocal(slot, value);
+    }
+
     public String toString () {
         return identifier;
     }
 
+    @Override
+    public Expression compile(CompileContext context) throws CompileException {
+        return this;
+    }
+
     @Override
     public Object calculate(JtwigContext context) {
-        return context.map(this.identifier);
+        if (slot < 0)
+            return context.map(this.identifier);
+        return context.local(slot, this.identifier);
     }
 }
@@ -17,138 +17,502 @@
 package com.lyncode.jtwig.tree.helper;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.api.Lookup;
+import com.lyncode.jtwig.tree.api.Writable;
 import com.lyncode.jtwig.tree.expressions.Composition;
+import com.lyncode.jtwig.tree.expressions.Constant;
+import com.lyncode.jtwig.tree.expressions.FunctionElement;
 import com.lyncode.jtwig.tree.expressions.OperationBinary;
 import com.lyncode.jtwig.tree.expressions.Operator;
 import com.lyncode.jtwig.tree.expressions.Selection;
 import com.lyncode.jtwig.util.BooleanOperations;
+import com.lyncode.jtwig.util.ConstantFolder;
 import com.lyncode.jtwig.util.MathOperations;
 import com.lyncode.jtwig.util.RelationalOperations;
 
-import static com.lyncode.jtwig.util.BooleanOperations.isTrue;
-
-public class StrictBinaryOperation implements Expression {
-    private Operator operator;
-    private Expression left;
-    private Expression right;
+import java.io.IOException;
+import java.util.regex.Pattern;
 
+import static com.lyncode.jtwig.util.BooleanOperations.isTrue;
 
+/**
+ * A single binary operation, the lowered form of an {@link OperationBinary}
+ * chain. Each operator has its own immutable implementation, built once
+ * when the template is compiled.
+ */
+public abstract class StrictBinaryOperation implements Expression {
     public static StrictBinaryOperation create(OperationBinary binary) {
-        int index = 0;
         StrictBinaryOperation last = null;
-        for (Operator operator : binary.getOperators()) {
-            StrictBinaryOperation operation = new StrictBinaryOperation();
-            operation.operator = operator;
-            if (last != null)
-                operation.left = last;
-            else
-                operation.left = binary.getOperands().get(index);
+        for (int index = 0; index < binary.getOperators().size(); index++) {
+            Expression left = last != null ? last : binary.getOperands().get(index);
+            last = create(binary.getOperators().get(index), left, binary.getOperands().get(index + 1));
+        }
+        return last;
+    }
 
-            operation.right = binary.getOperands().get(index+1);
-            last = operation;
-            index++;
+    public static Expression create(OperationBinary binary, CompileContext context) throws CompileException {
+        Expression last = null;
+        for (int index = 0; index < binary.getOperators().size(); index++) {
+            Expression left = last != null ? last : binary.getOperands().get(index);
+            last = bind(create(binary.getOperators().get(index), left, binary.getOperands().get(index + 1)), context);
         }
         return last;
     }
-    private Object numericExecute(JtwigContext resolver) throws CalculateException {
+
+    public static StrictBinaryOperation create(Operator operator, Expression left, Expression right) {
         switch (operator) {
+            case COMPOSITION:
+                return new Filter(left, right);
+            case SELECTION:
+                return new Select(left, right);
+            case IS:
+            case IS_NOT:
+                return new Is(operator, left, right);
             case ADD:
-                return MathOperations.sum(left.calculate(resolver), right.calculate(resolver));
+                return new Sum(left, right);
             case SUB:
-                return MathOperations.sub(left.calculate(resolver), right.calculate(resolver));
-            case DIV:
-                return MathOperations.div(left.calculate(resolver), right.calculate(resolver));
+                return new Subtraction(left, right);
             case TIMES:
-                return MathOperations.mul(left.calculate(resolver), right.calculate(resolver));
+                return new Multiplication(left, right);
+            case DIV:
+                return new Division(left, right);
             case MOD:
-                return MathOperations.mod(left.calculate(resolver), right.calculate(resolver));
-        }
-        throw new CalculateException("Unknown operator " + operator.toString());
-    }
-
-    private Object relationalExecute(JtwigContext resolver) throws CalculateException {
-        Object leftResolved = left.calculate(resolver);
-        Object rightResolved = right.calculate(resolver);
-        switch (operator) {
+                return new Modulo(left, right);
+            case AND:
+                return new And(left, right);
+            case OR:
+                return new Or(left, right);
             case GT:
-                return RelationalOperations.gt(leftResolved, rightResolved);
+                return new GreaterThan(left, right);
             case GTE:
-                return RelationalOperations.gte(leftResolved, rightResolved);
+                return new GreaterOrEqual(left, right);
             case LT:
-                return RelationalOperations.lt(leftResolved, rightResolved);
+                return new LessThan(left, right);
             case LTE:
-                return RelationalOperations.lte(leftResolved, rightResolved);
+                return new LessOrEqual(left, right);
             case EQUAL:
-                return RelationalOperations.eq(leftResolved, rightResolved);
+                return new Equal(left, right);
             case DIFF:
-                return RelationalOperations.neq(leftResolved, rightResolved);
+                return new Different(left, right);
             case STARTS_WITH:
-                if (leftResolved == null) return false;
-                return leftResolved.toString().startsWith(rightResolved.toString());
+                return new StartsWith(left, right);
             case ENDS_WITH:
-                if (leftResolved == null) return false;
-                return leftResolved.toString().endsWith(rightResolved.toString());
+                return new EndsWith(left, right);
             case MATCHES:
-                if (leftResolved == null) return false;
-                return leftResolved.toString().matches(rightResolved.toString());
+                return new Matches(left, right);
             case IN:
-                if (rightResolved == null) return false;
-                if ((rightResolved instanceof Iterable) || rightResolved.getClass().isArray())
-                    return new ObjectIterator(rightResolved).contains(leftResolved);
-                else if (rightResolved instanceof String)
-                    return ((String) rightResolved).contains(leftResolved.toString());
-                else
-                    return false;
+                return new In(left, right);
+            default:
+                return new Unsupported(operator, left, right);
         }
-        throw new CalculateException("Unknown operator " + operator.toString());
     }
 
-    private Object booleanExecute(JtwigContext resolver) throws CalculateException {
-        switch (operator) {
-            case AND:
-                return BooleanOperations.and(left.calculate(resolver), right.calculate(resolver));
-            case OR:
-                return BooleanOperations.or(left.calculate(resolver), right.calculate(resolver));
-        }
-        throw new CalculateException("Unknown operator " + operator.toString());
+    protected final Operator operator;
+    protected final Expression left;
+    protected final Expression right;
+
+    protected StrictBinaryOperation(Operator operator, Expression left, Expression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public Operator getOperator() {
+        return operator;
     }
 
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Expression getRight() {
+        return right;
+    }
 
     @Override
-    public Object calculate(JtwigContext context) throws CalculateException {
-        switch (operator) {
-            case COMPOSITION:
-                Composition composition = new Composition(left);
-                composition.add(right);
-                return composition.calculate(context);
-            case SELECTION:
-                Selection selection = new Selection(left);
-                selection.add(right);
-                return selection.calculate(context);
-            case IS:
-                composition = new Composition(left);
-                composition.add(right);
-                return isTrue(composition.calculate(context));
-            case IS_NOT:
-                composition = new Composition(left);
-                composition.add(right);
-                return !isTrue(composition.calculate(context));
-            case ADD:
-            case SUB:
-            case TIMES:
-            case DIV:
-            case MOD:
-            case INT_DIV:
-            case INT_TIMES:
-                return numericExecute(context);
-            case AND:
-            case OR:
-                return booleanExecute(context);
-            default:
-                return relationalExecute(context);
+    public Expression compile(CompileContext context) throws CompileException {
+        Expression compiledLeft = left.compile(context);
+        Expression compiledRight = right.compile(context);
+        if (compiledLeft == left && compiledRight == right)
+            return this;
+        return create(operator, compiledLeft, compiledRight);
+    }
+
+    /**
+     * Compiles the operands leaving a function on the right unbound, as it is
+     * a method call or takes the left operand as its first argument.
+     */
+    protected StrictBinaryOperation compileUnbound(CompileContext context) throws CompileException {
+        Expression compiledLeft = left.compile(context);
+        Expression compiledRight = FunctionElement.compileUnbound(right, context);
+        if (compiledLeft == left && compiledRight == right)
+            return this;
+        return create(operator, compiledLeft, compiledRight);
+    }
+
+    /**
+     * Filters and tests are bound through their composition, which knows the
+     * left operand is passed as an extra argument. Pure ones applied to a
+     * constant are folded.
+     */
+    private static Expression bind(Expression compiled, CompileContext context) throws CompileException {
+        Composition composition;
+        if (compiled instanceof Filter)
+            composition = ((Filter) compiled).composition;
+        else if (compiled instanceof Is)
+            composition = ((Is) compiled).composition;
+        else
+            return compiled;
+        composition.bind(context);
+        return composition.isConstant() ? ConstantFolder.fold(compiled) : compiled;
+    }
+
+    /**
+     * Results that never need escaping: numbers, booleans or the output of a
+     * safe filter.
+     */
+    public boolean isSafe(CompileContext context) {
+        return false;
+    }
+
+    public String toString() {
+        return left + " " + operator + " " + right;
+    }
+
+    private abstract static class ValueOperation extends StrictBinaryOperation {
+        protected ValueOperation(Operator operator, Expression left, Expression right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        public Object calculate(JtwigContext context) throws CalculateException {
+            return apply(left.calculate(context), right.calculate(context));
+        }
+
+        protected abstract Object apply(Object left, Object right) throws CalculateException;
+
+        @Override
+        public boolean isSafe(CompileContext context) {
+            return true;
+        }
+    }
+
+    private static final class Filter extends StrictBinaryOperation implements Writable {
+        private final Composition composition;
+
+        /**
+         * Chains are fused into one composition, so {@code x | trim | lower}
+         * applies both filters in a single loop instead of nested nodes.
+         */
+        private Filter(Expression left, Expression right) {
+            super(Operator.COMPOSITION, left, right);
+            if (left instanceof Filter) {
+                Composition chain = ((Filter) left).composition;
+                this.composition = new Composition(chain.getExpression());
+                this.composition.getFilters().addAll(chain.getFilters());
+            } else
+                this.composition = new Composition(left);
+            this.composition.add(right);
+        }
+
+        @Override
+        public Expression compile(CompileContext context) throws CompileException {
+            return bind(compileUnbound(context), context);
+        }
+
+        @Override
+        public Object calculate(JtwigContext context) throws CalculateException {
+            return composition.calculate(context);
+        }
+
+        @Override
+        public void write(RenderStream output, JtwigContext context) throws CalculateException, IOException {
+            composition.write(output, context);
+        }
+
+        @Override
+        public boolean isSafe(CompileContext context) {
+            return composition.isSafe(context);
+        }
+    }
+
+    private static final class Select extends StrictBinaryOperation implements Lookup {
+        private final Selection selection;
+
+        private Select(Expression left, Expression right) {
+            super(Operator.SELECTION, left, right);
+            this.selection = new Selection(left);
+            this.selection.add(right);
+        }
+
+        @Override
+        public Expression compile(CompileContext context) throws CompileException {
+            return compileUnbound(context);
+        }
+
+        @Override
+        public Object calculate(JtwigContext context) throws CalculateException {
+            return selection.calculate(context);
+        }
+
+        @Override
+        public Object calculateIfDefined(JtwigContext context) throws CalculateException {
+            return selection.calculateIfDefined(context);
+        }
+    }
+
+    private static final class Is extends StrictBinaryOperation {
+        private final Composition composition;
+        private final boolean expected;
+
+        private Is(Operator operator, Expression left, Expression right) {
+            super(operator, left, right);
+            this.composition = new Composition(left);
+            this.composition.add(right);
+            this.expected = operator == Operator.IS;
+        }
+
+        @Override
+        public Expression compile(CompileContext context) throws CompileException {
+            return bind(compileUnbound(context), context);
+        }
+
+        @Override
+        public Object calculate(JtwigContext context) throws CalculateException {
+            return isTrue(composition.calculate(context)) == expected;
+        }
+
+        @Override
+        public boolean isSafe(CompileContext context) {
+            return true;
+        }
+    }
+
+    private static final class Sum extends ValueOperation {
+        private Sum(Expression left, Expression right) {
+            super(Operator.ADD, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return MathOperations.sum(left, right);
+        }
+    }
+
+    private static final class Subtraction extends ValueOperation {
+        private Subtraction(Expression left, Expression right) {
+            super(Operator.SUB, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return MathOperations.sub(left, right);
+        }
+    }
+
+    private static final class Multiplication extends ValueOperation {
+        private Multiplication(Expression left, Expression right) {
+            super(Operator.TIMES, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return MathOperations.mul(left, right);
+        }
+    }
+
+    private static final class Division extends ValueOperation {
+        private Division(Expression left, Expression right) {
+            super(Operator.DIV, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return MathOperations.div(left, right);
+        }
+    }
+
+    private static final class Modulo extends ValueOperation {
+        private Modulo(Expression left, Expression right) {
+            super(Operator.MOD, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return MathOperations.mod(left, right);
+        }
+    }
+
+    private static final class And extends ValueOperation {
+        private And(Expression left, Expression right) {
+            super(Operator.AND, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return BooleanOperations.and(left, right);
+        }
+    }
+
+    private static final class Or extends ValueOperation {
+        private Or(Expression left, Expression right) {
+            super(Operator.OR, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return BooleanOperations.or(left, right);
+        }
+    }
+
+    private static final class GreaterThan extends ValueOperation {
+        private GreaterThan(Expression left, Expression right) {
+            super(Operator.GT, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return RelationalOperations.gt(left, right);
+        }
+    }
+
+    private static final class GreaterOrEqual extends ValueOperation {
+        private GreaterOrEqual(Expression left, Expression right) {
+            super(Operator.GTE, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return RelationalOperations.gte(left, right);
+        }
+    }
+
+    private static final class LessThan extends ValueOperation {
+        private LessThan(Expression left, Expression right) {
+            super(Operator.LT, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return RelationalOperations.lt(left, right);
+        }
+    }
+
+    private static final class LessOrEqual extends ValueOperation {
+        private LessOrEqual(Expression left, Expression right) {
+            super(Operator.LTE, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return RelationalOperations.lte(left, right);
+        }
+    }
+
+    private static final class Equal extends ValueOperation {
+        private Equal(Expression left, Expression right) {
+            super(Operator.EQUAL, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return RelationalOperations.eq(left, right);
+        }
+    }
+
+    private static final class Different extends ValueOperation {
+        private Different(Expression left, Expression right) {
+            super(Operator.DIFF, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return RelationalOperations.neq(left, right);
+        }
+    }
+
+    private static final class StartsWith extends ValueOperation {
+        private StartsWith(Expression left, Expression right) {
+            super(Operator.STARTS_WITH, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left == null) return false;
+            return left.toString().startsWith(right.toString());
+        }
+    }
+
+    private static final class EndsWith extends ValueOperation {
+        private EndsWith(Expression left, Expression right) {
+            super(Operator.ENDS_WITH, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left == null) return false;
+            return left.toString().endsWith(right.toString());
+        }
+    }
+
+    private static final class Matches extends ValueOperation {
+        private final Pattern pattern;
+
+        private Matches(Expression left, Expression right) {
+            super(Operator.MATCHES, left, right);
+            this.pattern = constantPattern(right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left == null) return false;
+            if (pattern != null)
+                return pattern.matcher(left.toString()).matches();
+            return left.toString().matches(right.toString());
+        }
+
+        private static Pattern constantPattern(Expression expression) {
+            if (!(expression instanceof Constant) || ((Constant) expression).isNull())
+                return null;
+            try {
+                return Pattern.compile(((Constant) expression).getValue().toString());
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class In extends ValueOperation {
+        private In(Expression left, Expression right) {
+            super(Operator.IN, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (right == null) return false;
+            if ((right instanceof Iterable) || right.getClass().isArray())
+                return new ObjectIterator(right).contains(left);
+            else if (right instanceof String)
+                return ((String) right).contains(left.toString());
+            else
+                return false;
+        }
+    }
+
+    private static final class Unsupported extends StrictBinaryOperation {
+        private Unsupported(Operator operator, Expression left, Expression right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        public Object calculate(JtwigContext context) throws CalculateException {
+            throw new CalculateException("Unknown operator " + operator.toString());
         }
     }
 }
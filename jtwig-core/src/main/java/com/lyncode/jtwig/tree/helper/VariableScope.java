@@ -0,0 +1,53 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.tree.helper;
+
+/**
+ * The frame slots assigned within a for loop or an included template, set
+ * by {@link com.lyncode.jtwig.compile.LocalSlots}.
+ *
+ * Leaving the scope gives restored slots (loop variables, anything assigned
+ * by an include) their previous value back. Other slots keep their new value
+ * if the variable was defined before the scope and are unassigned otherwise.
+ */
+public final class VariableScope {
+    private final int[] slots;
+    private final String[] names;
+    private final boolean[] restored;
+
+    public VariableScope(int[] slots, String[] names, boolean[] restored) {
+        this.slots = slots;
+        this.names = names;
+        this.restored = restored;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    public int getSlot(int index) {
+        return slots[index];
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public boolean isRestored(int index) {
+        return restored[index];
+    }
+}
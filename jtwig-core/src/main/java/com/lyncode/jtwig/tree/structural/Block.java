@@ -17,16 +17,15 @@
 package com.lyncode.jtwig.tree.structural;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Tag;
 import com.lyncode.jtwig.tree.api.TagInformation;
 import com.lyncode.jtwig.tree.content.JtwigContent;
 
-import java.io.OutputStream;
-
 public class Block implements Content, Tag {
     private String name;
 
@@ -57,13 +56,13 @@ public class Block implements Content, Tag {
     }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
-        return content.render(outputStream, context);
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+        return content.render(renderStream, context);
     }
 
     @Override
-    public Block compile(JtwigResource resource) throws CompileException {
-        this.content = content.compile(resource, begin(), end());
+    public Block compile(CompileContext context) throws CompileException {
+        this.content = content.compile(context, begin(), end());
         return this;
     }
 
@@ -17,19 +17,20 @@
 package com.lyncode.jtwig.tree.structural;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.ParseException;
 import com.lyncode.jtwig.exception.RenderException;
 import com.lyncode.jtwig.exception.ResourceException;
 import com.lyncode.jtwig.parser.JtwigParser;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.resource.JtwigResource;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Tag;
 import com.lyncode.jtwig.tree.api.TagInformation;
+import com.lyncode.jtwig.tree.content.ScopedContent;
 import com.lyncode.jtwig.tree.documents.JtwigDocument;
 
-import java.io.OutputStream;
-
 public class Include implements Content, Tag {
     private String path;
     private TagInformation begin = new TagInformation();
@@ -40,16 +41,16 @@ public class Include implements Content, Tag {
     }
 
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
         return false;
     }
 
     @Override
-    public Content compile(JtwigResource resource) throws CompileException {
+    public Content compile(CompileContext context) throws CompileException {
         try {
-            JtwigResource jtwigResource = resource.resolve(path);
-            JtwigDocument jtwigDocument = JtwigParser.parse(jtwigResource);
-            return jtwigDocument.compile(jtwigResource);
+            JtwigResource jtwigResource = context.getResource().resolve(path);
+            JtwigDocument jtwigDocument = JtwigParser.parse(jtwigResource, context.getConfiguration().getSourceCharset());
+            return new ScopedContent(jtwigDocument.compile(context.withResource(jtwigResource)));
         } catch (ParseException | ResourceException e) {
             throw new CompileException(e);
         }
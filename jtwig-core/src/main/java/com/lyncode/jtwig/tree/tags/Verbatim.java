@@ -17,17 +17,16 @@
 package com.lyncode.jtwig.tree.tags;
 
 import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.compile.CompileContext;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.RenderException;
-import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.api.Tag;
 import com.lyncode.jtwig.tree.api.TagInformation;
 import com.lyncode.jtwig.tree.content.Text;
 import com.lyncode.jtwig.tree.structural.Block;
 
-import java.io.OutputStream;
-
 public class Verbatim implements Content, Tag {
     private Text text;
     private TagInformation end = new TagInformation();
@@ -38,13 +37,17 @@ public class Verbatim implements Content, Tag {
         return true;
     }
 
+    public Text getText() {
+        return text;
+    }
+
     @Override
-    public boolean render(OutputStream outputStream, JtwigContext context) throws RenderException {
-        return text.render(outputStream, context);
+    public boolean render(RenderStream renderStream, JtwigContext context) throws RenderException {
+        return text.render(renderStream, context);
     }
 
     @Override
-    public Content compile(JtwigResource resource) throws CompileException {
+    public Content compile(CompileContext context) throws CompileException {
         return this;
     }
 
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolved field and method accessors, by class, property name and number
+ * of arguments. Misses are cached too.
+ *
+ * Accessors of classes loaded by the jtwig class loader, or by loaders below
+ * it, hang off each class (see {@link ClassValue}). Accessors of classes from
+ * the loaders above it, such as JDK classes, are kept in a map owned by this
+ * class instead. Otherwise they would keep the jtwig class loader, usually the
+ * webapp one, from being unloaded. {@link #release()} clears that map.
+ *
+ * Properties are matched ignoring case, methods either named after the
+ * property or prefixed with get, is or has. Only members accessible from
+ * this package are used.
+ */
+public class AccessorCache {
+    private static final String[] PREFIXES = new String[]{"", "get", "is", "has"};
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final Accessor MISSING = new Accessor(null, "missing");
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassLoader OWN_LOADER = AccessorCache.class.getClassLoader();
+
+    private static final ClassValue<Members> LOCAL = new ClassValue<Members>() {
+        @Override
+        protected Members computeValue(Class<?> type) {
+            return new Members();
+        }
+    };
+    private static final ConcurrentMap<Class<?>, Members> SHARED = new ConcurrentHashMap<>();
+
+    /**
+     * Drops the accessors of classes from the class loaders above the jtwig
+     * one, for instance when the application using jtwig is stopped.
+     */
+    public static void release() {
+        SHARED.clear();
+    }
+
+    /**
+     * @return the field accessor or null if the class has no such field
+     */
+    public static Accessor field(Class<?> type, String name) {
+        ConcurrentMap<String, Accessor> fields = members(type).fields;
+        Accessor accessor = fields.get(name);
+        if (accessor == null) {
+            accessor = resolveField(type, name);
+            fields.put(name, accessor == null ? MISSING : accessor);
+            return accessor;
+        }
+        return accessor == MISSING ? null : accessor;
+    }
+
+    /**
+     * @return the method accessor or null if the class has no such method
+     */
+    public static Accessor method(Class<?> type, String name, int arity) {
+        ConcurrentMap<String, Accessor[]> methods = members(type).methods;
+        Accessor[] byArity = methods.get(name);
+        if (byArity != null && arity < byArity.length && byArity[arity] != null)
+            return byArity[arity] == MISSING ? null : byArity[arity];
+
+        Accessor accessor = resolveMethod(type, name, arity);
+        Accessor[] updated = byArity == null ? new Accessor[arity + 1] : Arrays.copyOf(byArity, Math.max(byArity.length, arity + 1));
+        updated[arity] = accessor == null ? MISSING : accessor;
+        methods.put(name, updated);
+        return accessor;
+    }
+
+    private static Members members(Class<?> type) {
+        if (!isShared(type.getClassLoader()))
+            return LOCAL.get(type);
+        Members members = SHARED.get(type);
+        if (members == null) {
+            members = new Members();
+            Members existing = SHARED.putIfAbsent(type, members);
+            if (existing != null)
+                members = existing;
+        }
+        return members;
+    }
+
+    private static boolean isShared(ClassLoader loader) {
+        if (loader == OWN_LOADER)
+            return false;
+        if (loader == null)
+            return true;
+        for (ClassLoader current = OWN_LOADER; current != null; current = current.getParent()) {
+            if (current == loader)
+                return true;
+        }
+        return false;
+    }
+
+    private static Accessor resolveField(Class<?> type, String name) {
+        for (Class<?> current : hierarchy(type)) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equalsIgnoreCase(name)) {
+                    try {
+                        MethodHandle getter = LOOKUP.unreflectGetter(field);
+                        if (Modifier.isStatic(field.getModifiers()))
+                            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                        return new Accessor(MethodHandles.dropArguments(getter.asType(MethodType.methodType(Object.class, Object.class)), 1, Object[].class), field.toString());
+                    } catch (IllegalAccessException e) {
+                        // not accessible, keep looking
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Accessor resolveMethod(Class<?> type, String name, int arity) {
+        List<Class<?>> hierarchy = hierarchy(type);
+        for (String prefix : PREFIXES) {
+            for (Class<?> current : hierarchy) {
+                for (Method method : current.getDeclaredMethods()) {
+                    if (method.getParameterTypes().length == arity && method.getName().equalsIgnoreCase(prefix + name)) {
+                        try {
+                            MethodHandle handle = LOOKUP.unreflect(method);
+                            if (Modifier.isStatic(method.getModifiers()))
+                                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                            return new Accessor(handle.asSpreader(Object[].class, arity).asType(ACCESSOR_TYPE), method.toString());
+                        } catch (IllegalAccessException e) {
+                            // not accessible, keep looking
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Class<?>> hierarchy(Class<?> type) {
+        Set<Class<?>> result = new LinkedHashSet<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass())
+            result.add(current);
+        for (Class<?> current = type; current != null; current = current.getSuperclass())
+            addInterfaces(current, result);
+        return new ArrayList<>(result);
+    }
+
+    private static void addInterfaces(Class<?> type, Set<Class<?>> result) {
+        for (Class<?> anInterface : type.getInterfaces()) {
+            if (result.add(anInterface))
+                addInterfaces(anInterface, result);
+        }
+    }
+
+    private static final class Members {
+        private final ConcurrentMap<String, Accessor> fields = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Accessor[]> methods = new ConcurrentHashMap<>();
+    }
+
+    public static final class Accessor {
+        private final MethodHandle handle;
+        private final String description;
+
+        private Accessor(MethodHandle handle, String description) {
+            this.handle = handle;
+            this.description = description;
+        }
+
+        public Object invoke(Object target, Object... arguments) throws Throwable {
+            return (Object) handle.invokeExact(target, arguments);
+        }
+
+        public String toString() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.util;
+
+import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.functions.util.SafeString;
+import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.expressions.Constant;
+
+/**
+ * Evaluates expressions whose operands are all constants at compile time.
+ * Only immutable results (strings, numbers, booleans, characters and null)
+ * are folded, failures are left to happen at render time.
+ */
+public class ConstantFolder {
+    public static boolean areConstant(Expression... expressions) {
+        for (Expression expression : expressions) {
+            if (!(expression instanceof Constant))
+                return false;
+        }
+        return true;
+    }
+
+    public static Expression fold(Expression expression, Expression... operands) {
+        if (!areConstant(operands))
+            return expression;
+        try {
+            Object value = expression.calculate(null);
+            if (isImmutable(value))
+                return new Constant<>(value);
+        } catch (CalculateException | RuntimeException e) {
+            // evaluated again (and reported) when rendering
+        }
+        return expression;
+    }
+
+    public static boolean isImmutable(Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof SafeString
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Integer
+                || value instanceof Double;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.util;
+
+import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.exception.UndefinedException;
+import com.lyncode.jtwig.property.Property;
+import com.lyncode.jtwig.property.PropertyResolvers;
+
+/**
+ * Inline cache for a single property access of a template, such as the
+ * "name" in {{ user.name }}. Remembers the properties bound for the last few
+ * receiver classes seen there, so repeated renders skip the class lookup.
+ * Call sites seeing more classes fall back to the resolvers' own cache.
+ */
+public class PropertyCallSite {
+    private static final int MAXIMUM_ENTRIES = 4;
+
+    private final String name;
+    private final int arity;
+    private volatile Entry[] entries = new Entry[0];
+
+    public PropertyCallSite(String name, int arity) {
+        this.name = name;
+        this.arity = arity;
+    }
+
+    public Object extract(PropertyResolvers resolvers, Object target, Object... arguments) throws CalculateException {
+        Object value = find(resolvers, target, arguments);
+        if (value == Property.UNRESOLVED)
+            throw new UndefinedException("Unable to find field or method " + name + " in " + target);
+        return value;
+    }
+
+    /**
+     * @return the property value or {@link Property#UNRESOLVED} if the target has no such property
+     */
+    public Object find(PropertyResolvers resolvers, Object target, Object... arguments) throws CalculateException {
+        Class<?> type = target.getClass();
+        Entry[] current = entries;
+        for (Entry entry : current) {
+            if (entry.type == type && entry.resolvers == resolvers)
+                return PropertyResolvers.find(entry.properties, target, arguments);
+        }
+
+        Property[] properties = resolvers.bind(type, name, arity);
+        if (current.length < MAXIMUM_ENTRIES) {
+            Entry[] updated = new Entry[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = new Entry(resolvers, type, properties);
+            entries = updated;
+        }
+        return PropertyResolvers.find(properties, target, arguments);
+    }
+
+    private static class Entry {
+        private final PropertyResolvers resolvers;
+        private final Class<?> type;
+        private final Property[] properties;
+
+        private Entry(PropertyResolvers resolvers, Class<?> type, Property[] properties) {
+            this.resolvers = resolvers;
+            this.type = type;
+            this.properties = properties;
+        }
+    }
+}
@@ -16,14 +16,21 @@
 
 package com.lyncode.jtwig;
 
+import com.lyncode.jtwig.exception.UndefinedException;
+import com.lyncode.jtwig.functions.JtwigFunction;
 import com.lyncode.jtwig.tree.expressions.Selection;
 import com.lyncode.jtwig.tree.expressions.Variable;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -46,4 +53,44 @@ public class JtwigContextTest {
         );
         assertThat(selection.calculate(context), is((Object) 0));
     }
+
+    @Test
+    public void shouldKeepFunctionsPerContext() throws Exception {
+        JtwigFunction function = new JtwigFunction() {
+            @Override
+            public Object execute(Object... arguments) {
+                return "custom";
+            }
+        };
+        JtwigContext first = new JtwigContext().withFunction("custom", function);
+
+        assertThat(first.function("custom"), is(function));
+        assertThat(new JtwigContext().function("upper"), is(notNullValue()));
+        try {
+            new JtwigContext().function("custom");
+            fail();
+        } catch (UndefinedException e) {
+            assertThat(e.getMessage(), is("Function custom not found"));
+        }
+    }
+
+    @Test
+    public void shouldBoundTheMemo() throws Exception {
+        Map<Object, Object> memo = new JtwigContext().memo();
+        for (int i = 0; i < 2000; i++)
+            memo.put(i, i);
+
+        assertThat(memo.size(), is(1000));
+        assertThat(memo.get(1999), is((Object) 1999));
+    }
+
+    @Test
+    public void shouldFallBackToGlobals() throws Exception {
+        Map<String, Object> globals = Collections.<String, Object>singletonMap("site", "jtwig");
+        JtwigContext context = new JtwigContext().withGlobals(globals).withModelAttribute("name", "joao");
+
+        assertThat(new Variable("site").calculate(context), is((Object) "jtwig"));
+        assertThat(new Variable("name").calculate(context), is((Object) "joao"));
+        assertThat(context.withModelAttribute("site", null).map("site"), is(nullValue()));
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.lyncode.jtwig;
 
+import com.lyncode.jtwig.exception.RenderException;
 import com.lyncode.jtwig.resource.JtwigResource;
 import org.junit.Test;
 
@@ -25,6 +26,7 @@ import java.io.OutputStream;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -76,6 +78,19 @@ public class JtwigTemplateTest {
         assertThat(theOutput(), is("Block one and two"));
     }
 
+    @Test
+    public void shouldWriteWhatWasRenderedBeforeAFailure() throws Exception {
+        when(resource.retrieve()).thenReturn(new ByteArrayInputStream("before{{ bean.broken }}after".getBytes()));
+        context.withModelAttribute("bean", new Broken());
+
+        try {
+            underTest.output(toTheOutputStream(), context);
+            fail();
+        } catch (RenderException e) {
+            assertThat(theOutput(), is("before"));
+        }
+    }
+
     private String theOutput() {
         return outputStream.toString();
     }
@@ -84,4 +99,10 @@ public class JtwigTemplateTest {
         outputStream = new ByteArrayOutputStream();
         return outputStream;
     }
+
+    public static class Broken {
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
 }
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.bytecode;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.RenderException;
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BytecodeCompilerTest {
+    private JtwigConfiguration interpreted = new JtwigConfiguration();
+    private JtwigConfiguration generated = new JtwigConfiguration();
+
+    public BytecodeCompilerTest() {
+        generated.setBytecodeCompilation(true);
+    }
+
+    @Test
+    public void shouldGenerateClass() throws Exception {
+        Content content = new JtwigTemplate(new StringJtwigResource("Hello {{ name }}"), generated).compile();
+
+        assertThat(content, instanceOf(CompiledContent.class));
+    }
+
+    @Test
+    public void textAndOutput() throws Exception {
+        assertSameOutput("Hello {{ name }}, {{ 'constant' }} {{ 1 + 2 * 3 }}!");
+    }
+
+    @Test
+    public void conditions() throws Exception {
+        assertSameOutput("{% if name == 'jtwig' %}a{% elseif false %}b{% else %}c{% endif %}");
+        assertSameOutput("{% if not (name == 'jtwig') %}a{% elseif list %}b{% else %}c{% endif %}");
+        assertSameOutput("{% if false %}a{% endif %}-{{ (name == 'jtwig') ? 'yes' : 'no' }}");
+    }
+
+    @Test
+    public void loops() throws Exception {
+        assertSameOutput("{% for i in list %}{% for j in [1..3] %}{{ loop.index }}{{ i }}{{ j }},{% endfor %}{{ loop.last }}{% endfor %}");
+        assertSameOutput("{% for i in [] %}x{% endfor %}{{ i }}");
+        assertSameOutput("{% set t = 0 %}{% for i in list %}{% set t = t + i %}{% set u = i %}{% endfor %}{{ i }}{{ t }}{{ u }}");
+    }
+
+    @Test
+    public void fallbackNodes() throws Exception {
+        assertSameOutput("{% set a = list | length %}{{ a }} {{ name | upper }} {% for k,v in map %}{{ k }}={{ v }}{% endfor %}");
+        assertSameOutput("{% verbatim %}{{ raw }}{% endverbatim %} {% block a %}block{% endblock %}");
+    }
+
+    @Test
+    public void escapedOutput() throws Exception {
+        assertSameOutput("{{ html | escape }} {{ html | escape('js') }} {{ html | upper | escape('xml') }} {{ name | escape }}");
+        assertThat(new JtwigTemplate(new StringJtwigResource("{{ html | escape }}"), generated).output(context()),
+                is("&lt;a href=&quot;x&quot;&gt;&eacute;&lt;/a&gt;"));
+    }
+
+    @Test
+    public void trimmedText() throws Exception {
+        assertSameOutput("  {%- if true -%}  a  {%- endif -%}  ");
+    }
+
+    @Test(expected = RenderException.class)
+    public void shouldReportCalculationErrors() throws Exception {
+        new JtwigTemplate(new StringJtwigResource("{{ unknown_function(1) }}"), generated).output(new JtwigContext());
+    }
+
+    private void assertSameOutput(String template) throws Exception {
+        String expected = new JtwigTemplate(new StringJtwigResource(template), interpreted).output(context());
+        JtwigTemplate generatedTemplate = new JtwigTemplate(new StringJtwigResource(template), generated);
+
+        assertThat(generatedTemplate.compile(), instanceOf(CompiledContent.class));
+        assertThat(generatedTemplate.output(context()), is(expected));
+    }
+
+    private JtwigContext context() {
+        JtwigModelMap modelMap = new JtwigModelMap();
+        modelMap.add("name", "jtwig");
+        modelMap.add("html", "<a href=\"x\">\u00e9</a>");
+        modelMap.add("list", Arrays.asList(1, 2));
+        modelMap.add("map", Collections.singletonMap("key", "value"));
+        return new JtwigContext(modelMap);
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.cache;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.ParseException;
+import com.lyncode.jtwig.resource.FileJtwigResource;
+import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class CompiledTemplateCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CompiledTemplateCache underTest = new CompiledTemplateCache(2);
+    private JtwigConfiguration configuration = new JtwigConfiguration();
+
+    @Before
+    public void setUp() throws Exception {
+        configuration.setTemplateCache(underTest);
+    }
+
+    @Test
+    public void shouldCompileOnlyOnce() throws Exception {
+        JtwigResource resource = resource("joao");
+        JtwigTemplate template = new JtwigTemplate(resource, configuration);
+
+        assertThat(template.output(new JtwigContext()), is("joao"));
+        assertThat(template.output(new JtwigContext()), is("joao"));
+
+        verify(resource, times(1)).retrieve();
+    }
+
+    @Test
+    public void shouldRecompileAfterInvalidation() throws Exception {
+        JtwigResource resource = resource("joao");
+        JtwigTemplate template = new JtwigTemplate(resource, configuration);
+
+        template.compile();
+        template.invalidate();
+        template.compile();
+
+        verify(resource, times(2)).retrieve();
+    }
+
+    @Test
+    public void shouldBeBounded() throws Exception {
+        new JtwigTemplate(resource("a"), configuration).compile();
+        new JtwigTemplate(resource("b"), configuration).compile();
+        new JtwigTemplate(resource("c"), configuration).compile();
+
+        assertThat(underTest.size(), is(2L));
+    }
+
+    @Test
+    public void shouldShareEqualResources() throws Exception {
+        JtwigTemplate first = new JtwigTemplate(new StringJtwigResource("same"), configuration);
+        JtwigTemplate second = new JtwigTemplate(new StringJtwigResource("same"), configuration);
+
+        assertThat(first.compile(), sameInstance(second.compile()));
+    }
+
+    @Test(expected = ParseException.class)
+    public void shouldNotCacheFailures() throws Exception {
+        JtwigTemplate template = new JtwigTemplate(resource("{% if %}"), configuration);
+        try {
+            template.compile();
+        } finally {
+            assertThat(underTest.size(), is(0L));
+        }
+    }
+
+    @Test
+    public void shouldCompileOnceUnderContention() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final JtwigResource resource = mock(JtwigResource.class);
+        when(resource.retrieve()).thenAnswer(new Answer<InputStream>() {
+            @Override
+            public InputStream answer(InvocationOnMock invocation) throws Throwable {
+                loads.incrementAndGet();
+                Thread.sleep(100);
+                return new ByteArrayInputStream("shared".getBytes());
+            }
+        });
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Content>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Content>() {
+                    @Override
+                    public Content call() throws Exception {
+                        start.await();
+                        return new JtwigTemplate(resource, configuration).compile();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Content> result : results)
+                assertThat(result.get(), sameInstance(results.get(0).get()));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    public void shouldRecompileModifiedFiles() throws Exception {
+        configuration.setTemplateRefreshInterval(1);
+        File included = write("included.twig", "one");
+        File page = write("page.twig", "{% include 'included.twig' %}");
+        JtwigTemplate template = new JtwigTemplate(new FileJtwigResource(page), configuration);
+        assertThat(template.output(new JtwigContext()), is("one"));
+
+        write("included.twig", "two");
+        included.setLastModified(included.lastModified() + 2000);
+        Thread.sleep(5);
+
+        assertThat(template.output(new JtwigContext()), is("two"));
+    }
+
+    @Test
+    public void shouldNotCheckFilesWithinTheRefreshInterval() throws Exception {
+        configuration.setTemplateRefreshInterval(60000);
+        File page = write("page.twig", "one");
+        JtwigTemplate template = new JtwigTemplate(new FileJtwigResource(page), configuration);
+        assertThat(template.output(new JtwigContext()), is("one"));
+
+        write("page.twig", "two");
+        page.setLastModified(page.lastModified() + 2000);
+
+        assertThat(template.output(new JtwigContext()), is("one"));
+    }
+
+    @Test
+    public void shouldNeverCheckFilesWithoutRefreshInterval() throws Exception {
+        configuration.setTemplateRefreshInterval(0);
+        File page = write("page.twig", "one");
+        JtwigTemplate template = new JtwigTemplate(new FileJtwigResource(page), configuration);
+        assertThat(template.output(new JtwigContext()), is("one"));
+
+        write("page.twig", "two");
+        page.setLastModified(page.lastModified() + 2000);
+        Thread.sleep(5);
+
+        assertThat(template.output(new JtwigContext()), is("one"));
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+        return file;
+    }
+
+    private JtwigResource resource(String content) throws Exception {
+        JtwigResource resource = mock(JtwigResource.class);
+        when(resource.retrieve()).thenReturn(new ByteArrayInputStream(content.getBytes()));
+        return resource;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.compile;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.functions.repository.DefaultFunctionRepository;
+import com.lyncode.jtwig.functions.util.SafeString;
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import com.lyncode.jtwig.tree.content.Output;
+import com.lyncode.jtwig.tree.expressions.AutoEscape;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy.HTML;
+import static com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy.JAVASCRIPT;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AutoEscapeTest {
+    private JtwigConfiguration configuration = new JtwigConfiguration();
+    private JtwigModelMap model = new JtwigModelMap();
+
+    @Before
+    public void setUp() {
+        configuration.setAutoescape(HTML);
+        model.add("html", "<b>");
+        model.add("safe", new SafeString("<i>"));
+        model.add("quote", "it's");
+        model.add("number", 3);
+        model.add("list", Arrays.asList("<b>", 1));
+    }
+
+    @Test
+    public void shouldEscapeOutputs() throws Exception {
+        assertThat(output("{{ html }} {{ html | upper }}"), is("&lt;b&gt; &lt;B&gt;"));
+    }
+
+    @Test
+    public void shouldNotEscapeTwice() throws Exception {
+        assertThat(output("{{ html | escape }} {{ html | e('js') }}"), is("&lt;b&gt; <b>"));
+    }
+
+    @Test
+    public void shouldSkipSafeValues() throws Exception {
+        assertThat(output("{{ html | raw }} {{ safe }} {{ '<u>' }} {{ number }} {{ html == safe }}"), is("<b> <i> <u> 3 false"));
+    }
+
+    @Test
+    public void shouldUseTheConfiguredStrategy() throws Exception {
+        configuration.setAutoescape(JAVASCRIPT);
+
+        assertThat(output("{{ quote }}"), is("it\\'s"));
+    }
+
+    @Test
+    public void shouldBeDisabledByDefault() throws Exception {
+        configuration.setAutoescape(null);
+
+        assertThat(output("{{ html }}"), is("<b>"));
+    }
+
+    @Test
+    public void shouldDecideWhenCompiling() throws Exception {
+        configuration.setFunctionRepository(new DefaultFunctionRepository());
+
+        assertThat(((Output) new JtwigTemplate(new StringJtwigResource("{{ html }}"), configuration).compile()).getExpression(), instanceOf(AutoEscape.class));
+        assertThat(((Output) new JtwigTemplate(new StringJtwigResource("{{ html | raw }}"), configuration).compile()).getExpression(), not(instanceOf(AutoEscape.class)));
+    }
+
+    @Test
+    public void shouldEscapeInGeneratedClasses() throws Exception {
+        configuration.setBytecodeCompilation(true);
+
+        assertThat(output("{{ html }} {{ html | escape }} {{ safe }} {{ number }}"), is("&lt;b&gt; &lt;b&gt; <i> 3"));
+    }
+
+    @Test
+    public void shouldEscapeAssignedVariables() throws Exception {
+        assertLocalOutputs();
+        configuration.setBytecodeCompilation(true);
+        assertLocalOutputs();
+    }
+
+    private void assertLocalOutputs() throws Exception {
+        assertThat(output("{% set v = html %}{{ v }}"), is("&lt;b&gt;"));
+        assertThat(output("{% for i in list %}{{ i }}{{ loop.index }},{% endfor %}"), is("&lt;b&gt;0,11,"));
+    }
+
+    private String output(String template) throws Exception {
+        return new JtwigTemplate(new StringJtwigResource(template), configuration).output(new JtwigContext(model));
+    }
+}
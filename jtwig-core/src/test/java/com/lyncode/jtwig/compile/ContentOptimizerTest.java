@@ -0,0 +1,89 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.compile;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.parser.JtwigParser;
+import com.lyncode.jtwig.render.AppendableRenderStream;
+import com.lyncode.jtwig.resource.FileJtwigResource;
+import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.content.ForLoop;
+import com.lyncode.jtwig.tree.content.JtwigContent;
+import com.lyncode.jtwig.tree.content.Output;
+import com.lyncode.jtwig.tree.content.StaticText;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ContentOptimizerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JtwigConfiguration configuration = new JtwigConfiguration();
+    private ContentOptimizer underTest = new ContentOptimizer(configuration.getOutputCharset());
+
+    @Test
+    public void shouldCollapseStaticSubtrees() throws Exception {
+        write("footer.twig", "<footer>{% verbatim %}{{ raw }}{% endverbatim %}</footer>");
+        Content content = optimize(write("page.twig", "<p>{% block a %}a{% endblock %}</p>\n{%- include 'footer.twig' %}"));
+
+        assertThat(content, instanceOf(StaticText.class));
+        assertThat(render(content), is("<p>a</p><footer>{{ raw }}</footer>"));
+    }
+
+    @Test
+    public void shouldMergeTextAroundDynamicContent() throws Exception {
+        Content content = optimize(write("page.twig", "a {{ name }} b{% block c %} c {% endblock %}d{% for i in [1, 2] %}<{{ i }}>{% endfor %}"));
+
+        List<Content> contents = ((JtwigContent) content).getContents();
+        assertThat(contents.size(), is(4));
+        assertThat(contents.get(1), instanceOf(Output.class));
+        assertThat(((StaticText) contents.get(2)).getText(), is(" b c d"));
+        assertThat(((ForLoop) contents.get(3)).getContent().getContents().size(), is(3));
+        assertThat(render(content), is("a jtwig b c d<1><2>"));
+    }
+
+    private Content optimize(File file) throws Exception {
+        JtwigResource resource = new FileJtwigResource(file);
+        Content content = JtwigParser.parse(resource).compile(new CompileContext(resource, configuration));
+        return underTest.optimize(content);
+    }
+
+    private String render(Content content) throws Exception {
+        AppendableRenderStream renderStream = new AppendableRenderStream(new StringBuilder());
+        content.render(renderStream, new JtwigContext(new JtwigModelMap().add("name", "jtwig")));
+        return renderStream.toString();
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(Charset.defaultCharset()));
+        return file;
+    }
+}
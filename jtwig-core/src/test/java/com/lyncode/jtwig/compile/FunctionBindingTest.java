@@ -0,0 +1,180 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.compile;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
+import com.lyncode.jtwig.functions.exceptions.FunctionException;
+import com.lyncode.jtwig.functions.repository.DefaultFunctionRepository;
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FunctionBindingTest {
+    private JtwigConfiguration configuration = new JtwigConfiguration();
+    private DefaultFunctionRepository repository = new DefaultFunctionRepository();
+    private Counted counted = new Counted();
+
+    @Before
+    public void setUp() {
+        repository.add(constant("repository"), "greeting");
+        repository.add(counted);
+        configuration.setFunctionRepository(repository);
+    }
+
+    @Test(expected = CompileException.class)
+    public void shouldReportUnknownFunctionsWhenCompiling() throws Exception {
+        template("{{ missing(1) }}").compile();
+    }
+
+    @Test(expected = CompileException.class)
+    public void shouldReportUnknownFiltersWhenCompiling() throws Exception {
+        template("{{ 'a' | missing }}").compile();
+    }
+
+    @Test(expected = CompileException.class)
+    public void shouldCheckArityWhenCompiling() throws Exception {
+        template("{{ 'a' | default }}").compile();
+    }
+
+    @Test
+    public void shouldPassTheInputAsFirstArgument() throws Exception {
+        JtwigModelMap model = new JtwigModelMap().add("list", Arrays.asList(1, 2, 3));
+
+        String result = template("{{ null | default('b') }} {{ list | join(',') }} {{ list | batch(2, 0) | length }}").output(new JtwigContext(model));
+
+        assertThat(result, is("b 1,2,3 2"));
+    }
+
+    @Test
+    public void shouldNotBindMethodCalls() throws Exception {
+        JtwigModelMap model = new JtwigModelMap().add("value", "text");
+
+        String result = template("{{ value.substring(1) }} {{ value | upper }} {{ value is defined }}").output(new JtwigContext(model));
+
+        assertThat(result, is("ext TEXT true"));
+    }
+
+    @Test
+    public void shouldUseBoundFunctions() throws Exception {
+        JtwigContext context = new JtwigContext().withFunction("greeting", constant("context"));
+
+        assertThat(template("{{ greeting(1) }} {{ 'a' | greeting }}").output(context), is("repository repository"));
+    }
+
+    @Test
+    public void shouldResolveFunctionsPerRenderWhenLateBinding() throws Exception {
+        configuration.setLateFunctionBinding(true);
+        JtwigContext context = new JtwigContext().withFunction("greeting", constant("context"));
+
+        assertThat(template("{{ greeting(1) }} {{ 'a' | greeting }}").output(context), is("context context"));
+    }
+
+    @Test
+    public void shouldFoldPureCallsWithConstantArguments() throws Exception {
+        JtwigTemplate template = template("{{ counted('a') }} {{ 'b' | counted }} {{ 'c' | upper | counted }}");
+        template.compile();
+        assertThat(counted.calls, is(3));
+
+        assertThat(template.output(new JtwigContext()), is("a b C"));
+        assertThat(counted.calls, is(3));
+    }
+
+    @Test
+    public void shouldMemoizePureCallsWhenEnabled() throws Exception {
+        configuration.setMemoizePureFunctions(true);
+        JtwigModelMap model = new JtwigModelMap().add("value", "a").add("other", "b");
+
+        String result = template("{{ counted(value) }}{{ value | counted }}{{ counted(other) }}").output(new JtwigContext(model));
+
+        assertThat(result, is("aab"));
+        assertThat(counted.calls, is(2));
+    }
+
+    @Test
+    public void shouldMemoizeOnlyWithinARender() throws Exception {
+        configuration.setMemoizePureFunctions(true);
+        JtwigContext context = new JtwigContext(new JtwigModelMap().add("value", "a"));
+        JtwigTemplate template = template("{{ counted(value) }}{{ counted(value) }}");
+
+        template.output(context);
+        template.output(context);
+
+        assertThat(counted.calls, is(2));
+    }
+
+    @Test
+    public void shouldCallPureFunctionsEachTimeByDefault() throws Exception {
+        JtwigModelMap model = new JtwigModelMap().add("value", "a");
+
+        template("{{ counted(value) }}{{ counted(value) }}").output(new JtwigContext(model));
+
+        assertThat(counted.calls, is(2));
+    }
+
+    @Test
+    public void shouldPassUndefinedValuesToDeclaredProbes() throws Exception {
+        repository.add(new Missing());
+        JtwigModelMap model = new JtwigModelMap().add("value", "a");
+
+        String result = template("{{ value.missing | missing }} {{ value.missing | default('b') }}").output(new JtwigContext(model));
+
+        assertThat(result, is("missing b"));
+    }
+
+    private JtwigFunction constant(final String value) {
+        return new JtwigFunction() {
+            @Override
+            public Object execute(Object... arguments) throws FunctionException {
+                return value;
+            }
+        };
+    }
+
+    private JtwigTemplate template(String content) {
+        return new JtwigTemplate(new StringJtwigResource(content), configuration);
+    }
+
+    @JtwigFunctionDeclaration(name = "counted", pure = true)
+    public static class Counted implements JtwigFunction {
+        private int calls = 0;
+
+        @Override
+        public Object execute(Object... arguments) throws FunctionException {
+            calls++;
+            return arguments[0];
+        }
+    }
+
+    @JtwigFunctionDeclaration(name = "missing", probesUndefined = true)
+    public static class Missing implements JtwigFunction {
+        @Override
+        public Object execute(Object... arguments) throws FunctionException {
+            return arguments[0] == null ? "missing" : "present";
+        }
+    }
+}
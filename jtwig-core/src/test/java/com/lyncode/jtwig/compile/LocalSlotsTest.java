@@ -0,0 +1,125 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.compile;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.resource.FileJtwigResource;
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.content.LocalFrame;
+import com.lyncode.jtwig.tree.content.Output;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class LocalSlotsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JtwigConfiguration configuration = new JtwigConfiguration();
+
+    @Test
+    public void shouldOnlyUseFramesForTemplatesAssigningVariables() throws Exception {
+        assertThat(template("{{ a }}").compile(), not(instanceOf(LocalFrame.class)));
+        assertThat(template("{% set a = 1 %}{{ a }}").compile(), instanceOf(LocalFrame.class));
+    }
+
+    @Test
+    public void shouldReadTheModelUntilAssigned() throws Exception {
+        JtwigModelMap model = new JtwigModelMap().add("a", "model");
+
+        String result = template("{{ a }} {% set a = 'local' %}{{ a }}").output(new JtwigContext(model));
+
+        assertThat(result, is("model local"));
+    }
+
+    @Test
+    public void shouldNotWriteAssignmentsToTheModel() throws Exception {
+        JtwigModelMap model = new JtwigModelMap().add("list", Arrays.asList(1, 2));
+
+        template("{% set a = 1 %}{% for i in list %}{{ loop.index }}{% endfor %}").output(new JtwigContext(model));
+
+        assertThat(model.has("a") || model.has("i") || model.has("loop"), is(false));
+    }
+
+    @Test
+    public void shouldScopeLoops() throws Exception {
+        JtwigModelMap model = new JtwigModelMap().add("list", Arrays.asList(1, 2)).add("i", "model");
+
+        String result = template("{% set total = 0 %}{% for i in list %}{% set total = total + i %}{% set inner = i %}{% endfor %}"
+                + "{{ i }} {{ total }} {{ inner }}").output(new JtwigContext(model));
+
+        assertThat(result, is("model 3 null"));
+    }
+
+    @Test
+    public void shouldRestoreTheOuterLoop() throws Exception {
+        String result = template("{% for a in [1, 2] %}{% for b in [1, 2, 3] %}{% endfor %}{{ loop.index }}{{ loop.last }},{% endfor %}")
+                .output(new JtwigContext());
+
+        assertThat(result, is("0false,1true,"));
+    }
+
+    @Test(expected = CompileException.class)
+    public void shouldRejectUnknownContent() throws Exception {
+        new LocalSlots().allocate(mock(Content.class));
+    }
+
+    @Test(expected = CompileException.class)
+    public void shouldRejectUnknownExpressions() throws Exception {
+        new LocalSlots().allocate(new Output(mock(Expression.class)));
+    }
+
+    @Test
+    public void shouldScopeIncludes() throws Exception {
+        File included = folder.newFile("included.twig");
+        Files.write(included.toPath(), "{% set a = 'included' %}{{ a }}".getBytes("UTF-8"));
+        File page = folder.newFile("page.twig");
+        Files.write(page.toPath(), "{% set a = 'page' %}{% include 'included.twig' %} {{ a }}".getBytes("UTF-8"));
+
+        String result = new JtwigTemplate(new FileJtwigResource(page), configuration).output(new JtwigContext());
+
+        assertThat(result, is("included page"));
+    }
+
+    @Test
+    public void shouldKeepSlotsOfDifferentTemplatesApart() throws Exception {
+        JtwigContext context = new JtwigContext();
+
+        assertThat(template("{% set a = 'first' %}{{ a }}").output(context), is("first"));
+        assertThat(template("{% set b = 'second' %}{{ a }}{{ b }}").output(context), is("nullsecond"));
+    }
+
+    private JtwigTemplate template(String content) {
+        return new JtwigTemplate(new StringJtwigResource(content), configuration);
+    }
+}
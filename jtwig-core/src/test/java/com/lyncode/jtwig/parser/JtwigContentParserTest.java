@@ -22,13 +22,12 @@ import com.lyncode.jtwig.exception.ParseException;
 import com.lyncode.jtwig.exception.RenderException;
 import com.lyncode.jtwig.functions.JtwigFunction;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
+import com.lyncode.jtwig.render.AppendableRenderStream;
 import com.lyncode.jtwig.tree.api.Content;
 import org.junit.Test;
 import org.parboiled.errors.ParserRuntimeException;
 import org.parboiled.parserunners.ReportingParseRunner;
 
-import java.io.ByteArrayOutputStream;
-
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -38,7 +37,6 @@ public class JtwigContentParserTest {
     private JtwigContext context = new JtwigContext();
     private JtwigParser underTest = createParser(JtwigParser.class);
 
-
     @Test
     public void simpleOutput() throws Exception {
         context.withModelAttribute("out", "test");
@@ -51,13 +49,12 @@ public class JtwigContentParserTest {
         assertThat(theResult("{{ 2 * 3 }}"), is(equalTo("6")));
     }
 
-
     public String theResult(String input) throws ParseException, RenderException {
         ReportingParseRunner<Content> runner = new ReportingParseRunner<Content>(underTest.content());
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AppendableRenderStream renderStream = new AppendableRenderStream(new StringBuilder());
         try {
-            runner.run(input).resultValue.render(outputStream, context);
-            return outputStream.toString();
+            runner.run(input).resultValue.render(renderStream, context);
+            return renderStream.toString();
         } catch (ParserRuntimeException e) {
             if (e.getCause() instanceof ParseBypassException) {
                 throw ((ParseBypassException) e.getCause()).getInnerException();
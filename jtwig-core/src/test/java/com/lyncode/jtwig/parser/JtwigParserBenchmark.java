@@ -0,0 +1,60 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.parser;
+
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import org.parboiled.parserunners.ReportingParseRunner;
+
+import static org.parboiled.Parboiled.createParser;
+
+/**
+ * Compares parsing with a freshly created parser per template against the shared parser
+ * used by {@link JtwigParser#parse}. Run it with the test classpath, it is not a unit test.
+ */
+public class JtwigParserBenchmark {
+    private static final String TEMPLATE = "<ul>{% for item in items %}" +
+            "<li>{{ loop.index }}: {{ item.name | upper }}</li>" +
+            "{% endfor %}</ul>{% if user is defined %}Hello {{ user.name }}{% endif %}";
+
+    public static void main(String... args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        // warm up both paths so class generation and JIT are out of the measurement
+        perParse(50);
+        shared(50);
+
+        long perParse = perParse(iterations);
+        long shared = shared(iterations);
+
+        System.out.println(String.format("createParser per parse: %.3f ms/template", perParse / 1e6 / iterations));
+        System.out.println(String.format("shared parser:          %.3f ms/template", shared / 1e6 / iterations));
+    }
+
+    private static long perParse(int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            new ReportingParseRunner<Object>(createParser(JtwigParser.class).start()).run(TEMPLATE);
+        return System.nanoTime() - start;
+    }
+
+    private static long shared(int iterations) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            JtwigParser.parse(new StringJtwigResource(TEMPLATE));
+        return System.nanoTime() - start;
+    }
+}
@@ -16,8 +16,15 @@
 
 package com.lyncode.jtwig.parser;
 
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
 import com.lyncode.jtwig.exception.ParseBypassException;
 import com.lyncode.jtwig.exception.ParseException;
+import com.lyncode.jtwig.render.AppendableRenderStream;
+import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.resource.StringJtwigResource;
 import com.lyncode.jtwig.tree.api.Content;
 import com.lyncode.jtwig.tree.content.ForLoop;
 import org.junit.Test;
@@ -26,8 +33,22 @@ import org.parboiled.errors.ParserRuntimeException;
 import org.parboiled.parserunners.ReportingParseRunner;
 import org.parboiled.support.ParsingResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static com.lyncode.jtwig.matcher.OperationMatchers.OperationBinaryMatcherBuilder;
 import static com.lyncode.jtwig.matcher.OperationMatchers.OperationUnaryMatcherBuilder;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.parboiled.Parboiled.createParser;
 
 public class JtwigParserTest {
@@ -39,6 +60,94 @@ public class JtwigParserTest {
 
     }
 
+    @Test
+    public void sharedParserShouldReportEachErrorIndependently () throws Exception {
+        ParseException first = parseError("{% if %}{% endif %}");
+        ParseException second = parseError("{% if %}{% endif %}");
+
+        assertThat(first, not(sameInstance(second)));
+        assertThat(first.getMessage(), is(second.getMessage()));
+    }
+
+    @Test
+    public void shouldDecodeWithTheGivenCharset () throws Exception {
+        final Charset latin1 = Charset.forName("ISO-8859-1");
+        JtwigResource resource = new JtwigResource() {
+            @Override
+            public InputStream retrieve() {
+                return new ByteArrayInputStream("Jo\u00e3o".getBytes(latin1));
+            }
+
+            @Override
+            public JtwigResource resolve(String relativePath) {
+                return null;
+            }
+        };
+        AppendableRenderStream renderStream = new AppendableRenderStream(new StringBuilder());
+        JtwigParser.parse(resource, latin1)
+                .compile(new CompileContext(resource, new JtwigConfiguration()))
+                .render(renderStream, new JtwigContext());
+
+        assertThat(renderStream.toString(), is("Jo\u00e3o"));
+    }
+
+    @Test
+    public void shouldNotEncodeStringTemplates () throws Exception {
+        JtwigConfiguration configuration = new JtwigConfiguration();
+        configuration.setSourceCharset(Charset.forName("UTF-16"));
+
+        String result = new JtwigTemplate(new StringJtwigResource("Jo\u00e3o {{ '\u20ac' }}"), configuration).output(new JtwigContext());
+
+        assertThat(result, is("Jo\u00e3o \u20ac"));
+    }
+
+    @Test
+    public void sharedParserShouldBeUsableFromSeveralThreads () throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 20; i++) {
+                final int value = i;
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        AppendableRenderStream renderStream = new AppendableRenderStream(new StringBuilder());
+                        JtwigParser.parse(new StringJtwigResource("{% for i in [" + value + "] %}{{ i }}{% endfor %}"))
+                                .compile(new CompileContext(null, new JtwigConfiguration()))
+                                .render(renderStream, new JtwigContext());
+                        return renderStream.toString();
+                    }
+                }));
+            }
+            for (int i = 0; i < 20; i++)
+                assertThat(results.get(i).get(), is(String.valueOf(i)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldParseAgainAfterRelease () throws Exception {
+        JtwigParser.parse(new StringJtwigResource("{{ 1 }}"));
+        JtwigParser.release();
+
+        AppendableRenderStream renderStream = new AppendableRenderStream(new StringBuilder());
+        JtwigParser.parse(new StringJtwigResource("{{ 2 }}"))
+                .compile(new CompileContext(null, new JtwigConfiguration()))
+                .render(renderStream, new JtwigContext());
+
+        assertThat(renderStream.toString(), is("2"));
+    }
+
+    private ParseException parseError(String input) {
+        try {
+            JtwigParser.parse(new StringJtwigResource(input));
+            throw new AssertionError("Expecting a parse exception");
+        } catch (ParseException e) {
+            return e;
+        }
+    }
+
     private boolean matches(Rule rule, String input) {
         return new ReportingParseRunner<Object>(rule).run(input).matched;
     }
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.precompile;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.compile.ContentOptimizer;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.functions.repository.DefaultFunctionRepository;
+import com.lyncode.jtwig.parser.JtwigParser;
+import com.lyncode.jtwig.render.AppendableRenderStream;
+import com.lyncode.jtwig.resource.ClasspathJtwigResource;
+import com.lyncode.jtwig.resource.FileJtwigResource;
+import com.lyncode.jtwig.resource.JtwigResource;
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy.HTML;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeNotNull;
+
+public class TemplateSourceWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int classCount = 0;
+
+    @Test
+    public void shouldRebuildExpressions() throws Exception {
+        assertSameOutput("Hello {{ name | upper }}! {{ 1 + 2 * 3 }} {{ not false }} {{ map['key'] }} {{ list | join(', ') }}");
+        assertSameOutput("{{ (name == 'jtwig') ? 'yes' : 'no' }} {{ map.key }} {% set m = { a: 'b' } %}{{ m.a }}");
+    }
+
+    @Test
+    public void shouldRebuildTags() throws Exception {
+        assertSameOutput("{% for i in [1..3] %}{% if i == 1 %}one{% elseif i == 2 %}two{% else %}{{ loop.index }}{% endif %}{% endfor %}");
+        assertSameOutput("{% set a = 'b' %}{{ a }} {% for k,v in map %}{{ k }}={{ v }}{% endfor %} {% verbatim %}{{ raw }}{% endverbatim %}");
+        assertSameOutput("  {%- block name -%}  \"quoted\"\n\t'text' é  {%- endblock -%}  ");
+    }
+
+    @Test
+    public void shouldResolveExtendsAndIncludes() throws Exception {
+        write("base.twig", "<h1>{% block title %}base{% endblock %}</h1>{% include 'footer.twig' %}");
+        write("footer.twig", "<footer>{{ name }}</footer>");
+        File child = write("child.twig", "{% extends 'base.twig' %}{% block title %}child{% endblock %}");
+
+        JtwigResource resource = new FileJtwigResource(child);
+        assertThat(precompiled(resource), is("<h1>child</h1><footer>jtwig</footer>"));
+    }
+
+    @Test
+    public void shouldUseIndexedTemplate() throws Exception {
+        ClassLoader classLoader = compile("IndexedTemplate", new StringJtwigResource("precompiled"));
+        JtwigConfiguration configuration = new JtwigConfiguration();
+        configuration.setPrecompiledTemplates(new PrecompiledTemplates(Collections.singletonMap("templates/index.twig", "IndexedTemplate"), classLoader));
+
+        String result = new JtwigTemplate(new ClasspathJtwigResource("/templates/index.twig"), configuration).output(new JtwigContext());
+
+        assertThat(result, is("precompiled"));
+        assertThat(configuration.getPrecompiledTemplates().lookup(new ClasspathJtwigResource("other.twig"), configuration), nullValue());
+    }
+
+    @Test
+    public void shouldAutoescapePrecompiledTemplates() throws Exception {
+        JtwigConfiguration escaping = new JtwigConfiguration();
+        escaping.setAutoescape(HTML);
+        ClassLoader classLoader = compile("EscapedTemplate", new StringJtwigResource("{{ html }}"), escaping);
+        escaping.setPrecompiledTemplates(new PrecompiledTemplates(Collections.singletonMap("escaped.twig", "EscapedTemplate"), classLoader));
+
+        assertThat(escaping.getPrecompiledTemplates().lookup(new ClasspathJtwigResource("escaped.twig"), escaping), notNullValue());
+        assertThat(new JtwigTemplate(new ClasspathJtwigResource("escaped.twig"), escaping).output(context()), is("&lt;script&gt;"));
+    }
+
+    @Test
+    public void shouldCompileAgainWithOtherSettings() throws Exception {
+        ClassLoader classLoader = compile("UnescapedTemplate", new StringJtwigResource("precompiled"));
+        JtwigConfiguration escaping = new JtwigConfiguration();
+        escaping.setAutoescape(HTML);
+        escaping.setPrecompiledTemplates(new PrecompiledTemplates(Collections.singletonMap("sample.twig", "UnescapedTemplate"), classLoader));
+
+        assertThat(new JtwigTemplate(new ClasspathJtwigResource("/sample.twig"), escaping).output(context()), is("Hi!"));
+    }
+
+    @Test
+    public void shouldBindFunctionsOfPrecompiledTemplates() throws Exception {
+        ClassLoader classLoader = compile("BoundTemplate", new StringJtwigResource("{{ name | upper }}"));
+        JtwigConfiguration binding = new JtwigConfiguration();
+        binding.setFunctionRepository(new DefaultFunctionRepository());
+        binding.setPrecompiledTemplates(new PrecompiledTemplates(Collections.singletonMap("sample.twig", "BoundTemplate"), classLoader));
+
+        assertThat(new JtwigTemplate(new ClasspathJtwigResource("/sample.twig"), binding).output(context()), is("JTWIG"));
+    }
+
+    @Test(expected = CompileException.class)
+    public void shouldReportUnknownFunctionsOfPrecompiledTemplates() throws Exception {
+        ClassLoader classLoader = compile("UnboundTemplate", new StringJtwigResource("{{ missing(1) }}"));
+        JtwigConfiguration binding = new JtwigConfiguration();
+        binding.setFunctionRepository(new DefaultFunctionRepository());
+        binding.setPrecompiledTemplates(new PrecompiledTemplates(Collections.singletonMap("sample.twig", "UnboundTemplate"), classLoader));
+
+        new JtwigTemplate(new ClasspathJtwigResource("/sample.twig"), binding).compile();
+    }
+
+    private void assertSameOutput(String template) throws Exception {
+        JtwigResource resource = new StringJtwigResource(template);
+        assertThat(precompiled(resource), is(new JtwigTemplate(template).output(context())));
+    }
+
+    private String precompiled(JtwigResource resource) throws Exception {
+        String className = "Template" + (classCount++);
+        ClassLoader classLoader = compile(className, resource);
+        Content content = ((PrecompiledTemplate) classLoader.loadClass(className).newInstance()).content();
+
+        AppendableRenderStream renderStream = new AppendableRenderStream(new StringBuilder());
+        content.render(renderStream, context());
+        return renderStream.toString();
+    }
+
+    private ClassLoader compile(String className, JtwigResource resource) throws Exception {
+        return compile(className, resource, new JtwigConfiguration());
+    }
+
+    private ClassLoader compile(String className, JtwigResource resource, JtwigConfiguration configuration) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeNotNull(compiler);
+
+        String source = new TemplateSourceWriter().write("", className, compile(resource, configuration), configuration);
+        File sourceFile = write(className + ".java", source);
+        String classPath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        int result = compiler.run(null, null, null, "-classpath", classPath, "-d", folder.getRoot().getPath(), sourceFile.getPath());
+
+        assertThat(source, result, is(0));
+        return new URLClassLoader(new URL[]{folder.getRoot().toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private Content compile(JtwigResource resource, JtwigConfiguration configuration) throws Exception {
+        try {
+            Content content = JtwigParser.parse(resource).compile(new CompileContext(resource, configuration));
+            return new ContentOptimizer(configuration.getOutputCharset()).optimize(content);
+        } catch (CompileException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(Charset.forName("UTF-8")));
+        return file;
+    }
+
+    private JtwigContext context() {
+        JtwigModelMap modelMap = new JtwigModelMap();
+        modelMap.add("name", "jtwig");
+        modelMap.add("html", "<script>");
+        modelMap.add("list", Arrays.asList(1, 2));
+        modelMap.add("map", Collections.singletonMap("key", "value"));
+        return new JtwigContext(modelMap);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.property;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.JtwigTemplate;
+import com.lyncode.jtwig.exception.CalculateException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PropertyResolversTest {
+    private PropertyResolvers underTest = PropertyResolvers.defaults();
+
+    @Test
+    public void shouldPreferMethodsOverMapEntries () throws CalculateException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", "entry");
+        map.put("key", "entry");
+
+        assertThat(underTest.resolve(map, "size"), is((Object) 2));
+        assertThat(underTest.resolve(map, "key"), is((Object) "entry"));
+    }
+
+    @Test
+    public void shouldFallBackToMapMethods () throws CalculateException {
+        assertThat(underTest.resolve(Collections.singletonMap("a", 1), "size"), is((Object) 1));
+        assertThat(underTest.resolve(Collections.singletonMap("a", 1), "missing"), nullValue());
+    }
+
+    @Test
+    public void shouldResolveIndexes () throws CalculateException {
+        assertThat(underTest.resolve(Arrays.asList("a", "b"), "1"), is((Object) "b"));
+        assertThat(underTest.resolve(new int[] { 3, 4 }, "0"), is((Object) 3));
+    }
+
+    @Test(expected = CalculateException.class)
+    public void shouldFailOnUnknownProperty () throws CalculateException {
+        underTest.resolve(Arrays.asList("a"), "5");
+    }
+
+    @Test
+    public void shouldFindUnresolvedWithoutFailing () throws CalculateException {
+        Property[] properties = underTest.bind(String.class, "unknown", 0);
+
+        assertThat(PropertyResolvers.find(properties, "value"), sameInstance(Property.UNRESOLVED));
+        assertThat(underTest.bind(String.class, "unknown", 0), sameInstance(properties));
+    }
+
+    @Test
+    public void shouldNotFillStackTraceOfUndefinedProperties () {
+        try {
+            underTest.resolve("value", "unknown");
+            fail();
+        } catch (CalculateException e) {
+            assertThat(e.getStackTrace().length, is(0));
+        }
+    }
+
+    @Test
+    public void shouldUseCustomResolversFirst () throws Exception {
+        PropertyResolvers resolvers = underTest.with(new PropertyResolver() {
+            @Override
+            public Property bind(Class<?> type, String name, int arity) {
+                if (!"upper".equals(name) || type != String.class)
+                    return null;
+                return new Property() {
+                    @Override
+                    public Object get(Object target, Object... arguments) {
+                        return ((String) target).toUpperCase();
+                    }
+                };
+            }
+        });
+        JtwigModelMap model = new JtwigModelMap();
+        model.add("value", "jtwig");
+        model.add("list", Arrays.asList("a", "b"));
+
+        String result = new JtwigTemplate("{{ value.upper }} {{ list[1] }}")
+                .output(new JtwigContext(model).withPropertyResolvers(resolvers));
+
+        assertThat(result, is("JTWIG b"));
+    }
+}
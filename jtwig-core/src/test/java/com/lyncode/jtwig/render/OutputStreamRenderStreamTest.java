@@ -0,0 +1,110 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.render;
+
+import com.lyncode.jtwig.tree.content.StaticText;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class OutputStreamRenderStreamTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private OutputStreamRenderStream underTest = new OutputStreamRenderStream(outputStream, UTF_8);
+
+    @Test
+    public void shouldEncodeOnlyWhenFlushed() throws Exception {
+        underTest.append("Jo").append('ã').append(new StringBuilder("o"));
+
+        assertThat(outputStream.size(), is(0));
+        underTest.flush();
+        assertThat(new String(outputStream.toByteArray(), UTF_8), is("João"));
+    }
+
+    @Test
+    public void shouldKeepStaticTextInOrder() throws Exception {
+        StaticText text = new StaticText("<p>", UTF_8);
+        underTest.writeStatic(text).append("ã").writeStatic(text).flush();
+
+        assertThat(new String(outputStream.toByteArray(), UTF_8), is("<p>ã<p>"));
+        assertThat(text.getBytes(UTF_8), sameInstance(text.getBytes(UTF_8)));
+    }
+
+    @Test
+    public void shouldKeepStaticTextBytesForEachCharset() throws Exception {
+        Charset latin1 = Charset.forName("ISO-8859-1");
+        StaticText text = new StaticText("ã", UTF_8);
+        byte[] compiled = text.getBytes(UTF_8);
+
+        new OutputStreamRenderStream(new ByteArrayOutputStream(), latin1).writeStatic(text).flush();
+
+        assertThat(text.getBytes(UTF_8), sameInstance(compiled));
+        assertThat(text.getBytes(latin1), sameInstance(text.getBytes(latin1)));
+        assertThat(new String(text.getBytes(latin1), latin1), is("ã"));
+    }
+
+    @Test
+    public void shouldEncodeValuesLargerThanTheBuffer() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            expected.append("é😀");
+            underTest.append("é").append("😀");
+        }
+        underTest.write(null);
+        expected.append("null");
+        underTest.flush();
+
+        assertThat(new String(outputStream.toByteArray(), UTF_8), is(expected.toString()));
+    }
+
+    @Test
+    public void shouldMixDirectAndEncodedCharacters() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            expected.append("ab€\u00e9");
+            underTest.append("ab€\u00e9");
+        }
+        underTest.flush();
+
+        assertThat(new String(outputStream.toByteArray(), UTF_8), is(expected.toString()));
+    }
+
+    @Test
+    public void shouldReplaceLoneSurrogates() throws Exception {
+        underTest.append("a\ud83db").flush();
+
+        assertThat(new String(outputStream.toByteArray(), UTF_8), is("a?b"));
+    }
+
+    @Test
+    public void shouldEncodeLatin1AndOtherCharsets() throws Exception {
+        Charset latin1 = Charset.forName("ISO-8859-1");
+        new OutputStreamRenderStream(outputStream, latin1).append("Jo\u00e3o €").flush();
+        assertThat(new String(outputStream.toByteArray(), latin1), is("Jo\u00e3o ?"));
+
+        Charset utf16 = Charset.forName("UTF-16BE");
+        ByteArrayOutputStream utf16Output = new ByteArrayOutputStream();
+        new OutputStreamRenderStream(utf16Output, utf16).append("Jo\u00e3o €").flush();
+        assertThat(new String(utf16Output.toByteArray(), utf16), is("Jo\u00e3o €"));
+    }
+}
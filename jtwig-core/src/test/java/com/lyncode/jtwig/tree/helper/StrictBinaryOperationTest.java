@@ -0,0 +1,81 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.tree.helper;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.tree.api.Expression;
+import com.lyncode.jtwig.tree.expressions.Constant;
+import com.lyncode.jtwig.tree.expressions.FunctionElement;
+import com.lyncode.jtwig.tree.expressions.OperationBinary;
+import com.lyncode.jtwig.tree.expressions.Operator;
+import com.lyncode.jtwig.tree.expressions.Selection;
+import com.lyncode.jtwig.tree.expressions.Variable;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StrictBinaryOperationTest {
+    private JtwigContext context = new JtwigContext(new JtwigModelMap().add("value", "jtwig"));
+
+    @Test
+    public void shouldLowerChainsLeftToRight() throws Exception {
+        OperationBinary binary = new OperationBinary(new Constant<>(10));
+        binary.addOperator(Operator.SUB);
+        binary.add(new Constant<>(4));
+        binary.addOperator(Operator.SUB);
+        binary.add(new Constant<>(3));
+
+        StrictBinaryOperation operation = StrictBinaryOperation.create(binary);
+
+        assertThat(operation.getOperator(), is(Operator.SUB));
+        assertThat(((StrictBinaryOperation) operation.getLeft()).getOperator(), is(Operator.SUB));
+        assertThat(operation.calculate(context), is((Object) 3));
+    }
+
+    @Test
+    public void shouldEvaluateTestsAndPatterns() throws Exception {
+        Expression value = new Variable("value");
+
+        assertThat(StrictBinaryOperation.create(Operator.IS, value, new Variable("null")).calculate(context), is((Object) false));
+        assertThat(StrictBinaryOperation.create(Operator.IS_NOT, value, new Variable("null")).calculate(context), is((Object) true));
+        assertThat(StrictBinaryOperation.create(Operator.MATCHES, value, new Constant<>("j.*g")).calculate(context), is((Object) true));
+        assertThat(StrictBinaryOperation.create(Operator.IN, new Constant<>("tw"), value).calculate(context), is((Object) true));
+    }
+
+    @Test
+    public void shouldApplyFilterChainsInOrder() throws Exception {
+        Expression missing = new Selection(new Variable("value"), new Variable("missing"));
+        StrictBinaryOperation chain = StrictBinaryOperation.create(Operator.COMPOSITION,
+                StrictBinaryOperation.create(Operator.COMPOSITION, missing, new FunctionElement("default", new Constant<>("fallback"))),
+                new Variable("upper"));
+
+        assertThat(chain.compile(new CompileContext(null, new JtwigConfiguration())).calculate(context), is((Object) "FALLBACK"));
+        assertThat(((StrictBinaryOperation) chain.getLeft()).getOperator(), is(Operator.COMPOSITION));
+    }
+
+    @Test
+    public void shouldKeepCompiledOperations() throws Exception {
+        StrictBinaryOperation operation = StrictBinaryOperation.create(Operator.ADD, new Variable("a"), new Constant<>(1));
+
+        assertThat(operation.compile(null), sameInstance((Expression) operation));
+    }
+}
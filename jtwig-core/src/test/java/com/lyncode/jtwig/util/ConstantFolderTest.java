@@ -0,0 +1,88 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.util;
+
+import com.lyncode.jtwig.JtwigContext;
+import com.lyncode.jtwig.JtwigModelMap;
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.compile.ContentOptimizer;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.RenderException;
+import com.lyncode.jtwig.parser.JtwigParser;
+import com.lyncode.jtwig.render.AppendableRenderStream;
+import com.lyncode.jtwig.resource.StringJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.content.IfExpression;
+import com.lyncode.jtwig.tree.content.JtwigContent;
+import com.lyncode.jtwig.tree.content.Output;
+import com.lyncode.jtwig.tree.content.StaticText;
+import com.lyncode.jtwig.tree.expressions.Constant;
+import com.lyncode.jtwig.tree.helper.StrictBinaryOperation;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConstantFolderTest {
+    @Test
+    public void shouldFoldConstantExpressions() throws Exception {
+        Content content = compile("{{ 1 + 2 * 3 }} {{ not (1 > 2) }} {{ (1 > 2) ? 'yes' : 'no' }} {{ 'jtwig' starts with 'j' }}");
+
+        assertThat(content, instanceOf(StaticText.class));
+        assertThat(render(content), is("7 true no true"));
+    }
+
+    @Test
+    public void shouldFoldLeadingConstantOperands() throws Exception {
+        Output output = (Output) compile("{{ 1 + 2 + value }}");
+        StrictBinaryOperation expression = (StrictBinaryOperation) output.getExpression();
+
+        assertThat(((Constant) expression.getLeft()).getValue(), is((Object) 3));
+        assertThat(render(output), is("13"));
+    }
+
+    @Test
+    public void shouldRemoveDeadBranches() throws Exception {
+        assertThat(render(compile("{% if false %}a{% elseif value > 1 %}b{% elseif true %}c{% else %}d{% endif %}")), is("b"));
+
+        IfExpression ifExpression = (IfExpression) compile("{% if false %}a{% elseif value > 1 %}b{% elseif true %}c{% else %}d{% endif %}");
+        assertThat(ifExpression.getElseIfExpressions().size(), is(0));
+        assertThat(render(ifExpression.getElseExpression().getContent()), is("c"));
+
+        assertThat(compile("{% if 1 == 1 %}a{% else %}{{ value }}{% endif %}"), instanceOf(StaticText.class));
+        assertThat(((JtwigContent) compile("{% if false %}a{% endif %}")).getContents().size(), is(0));
+    }
+
+    @Test(expected = RenderException.class)
+    public void shouldKeepFailuresForRenderTime() throws Exception {
+        render(compile("{{ 1 // 2 }}"));
+    }
+
+    private Content compile(String template) throws Exception {
+        JtwigConfiguration configuration = new JtwigConfiguration();
+        StringJtwigResource resource = new StringJtwigResource(template);
+        Content content = JtwigParser.parse(resource).compile(new CompileContext(resource, configuration));
+        return new ContentOptimizer(configuration.getOutputCharset()).optimize(content);
+    }
+
+    private String render(Content content) throws Exception {
+        AppendableRenderStream renderStream = new AppendableRenderStream(new StringBuilder());
+        content.render(renderStream, new JtwigContext(new JtwigModelMap().add("value", 10)));
+        return renderStream.toString();
+    }
+}
@@ -19,12 +19,17 @@ package com.lyncode.jtwig.util;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class ObjectExtractorTest {
@@ -55,11 +60,55 @@ public class ObjectExtractorTest {
         assertThat(underTest.extract("b"), is((Object) "b"));
     }
 
+    @Test
+    public void shouldExtractFromMethodsWithArgumentsAndPrefixes () throws ObjectExtractor.ExtractException {
+        B b = new B();
+        b.b = "b";
+
+        assertThat(new ObjectExtractor(b).extract("name"), is((Object) "name"));
+        assertThat(new ObjectExtractor(b).extract("repeat", 2), is((Object) "bb"));
+        assertThat(new ObjectExtractor(Collections.unmodifiableList(Arrays.asList(1, 2))).extract("size"), is((Object) 2));
+    }
+
+    @Test
+    public void shouldCacheResolvedAccessors () throws ObjectExtractor.ExtractException {
+        assertThat(AccessorCache.field(B.class, "b"), sameInstance(AccessorCache.field(B.class, "b")));
+        assertThat(AccessorCache.method(B.class, "repeat", 1), sameInstance(AccessorCache.method(B.class, "repeat", 1)));
+        assertThat(AccessorCache.method(B.class, "unknown", 0), nullValue());
+    }
+
+    @Test
+    public void shouldReleaseAccessorsOfSharedClasses () throws ObjectExtractor.ExtractException {
+        AccessorCache.Accessor local = AccessorCache.method(B.class, "repeat", 1);
+        AccessorCache.Accessor shared = AccessorCache.method(String.class, "length", 0);
+        AccessorCache.release();
+
+        assertThat(AccessorCache.method(String.class, "length", 0), not(sameInstance(shared)));
+        assertThat(AccessorCache.method(B.class, "repeat", 1), sameInstance(local));
+        assertThat(new ObjectExtractor("abc").extract("length"), is((Object) 3));
+    }
+
+    @Test(expected = ObjectExtractor.ExtractException.class)
+    public void shouldFailOnUnknownProperty () throws ObjectExtractor.ExtractException {
+        new ObjectExtractor(new B()).extract("unknown");
+    }
+
     private static class A {
         public String a;
     }
 
     private static class B extends A {
         public String b;
+
+        public String getName() {
+            return "name";
+        }
+
+        public String repeat(int times) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < times; i++)
+                builder.append(b);
+            return builder.toString();
+        }
     }
 }
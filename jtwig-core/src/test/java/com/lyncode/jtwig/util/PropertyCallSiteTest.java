@@ -0,0 +1,79 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.util;
+
+import com.lyncode.jtwig.exception.CalculateException;
+import com.lyncode.jtwig.property.Property;
+import com.lyncode.jtwig.property.PropertyResolver;
+import com.lyncode.jtwig.property.PropertyResolvers;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PropertyCallSiteTest {
+    @Test
+    public void shouldHandleSeveralReceiverClasses () throws CalculateException {
+        PropertyCallSite underTest = new PropertyCallSite("size", 0);
+        List<Collection<Integer>> receivers = new ArrayList<Collection<Integer>>();
+        receivers.add(new ArrayList<>(Arrays.asList(1)));
+        receivers.add(new LinkedList<>(Arrays.asList(1, 2)));
+        receivers.add(new HashSet<>(Arrays.asList(1, 2, 3)));
+        receivers.add(new TreeSet<>(Arrays.asList(1, 2, 3, 4)));
+        receivers.add(new ArrayDeque<>(Arrays.asList(1, 2, 3, 4, 5)));
+        receivers.add(Collections.unmodifiableList(Arrays.asList(1, 2, 3, 4, 5, 6)));
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < receivers.size(); i++)
+                assertThat(underTest.extract(PropertyResolvers.defaults(), receivers.get(i)), is((Object) (i + 1)));
+        }
+    }
+
+    @Test
+    public void shouldFallBackToMapEntries () throws CalculateException {
+        PropertyCallSite underTest = new PropertyCallSite("key", 0);
+
+        assertThat(underTest.extract(PropertyResolvers.defaults(), Collections.singletonMap("key", "first")), is((Object) "first"));
+        assertThat(underTest.extract(PropertyResolvers.defaults(), Collections.singletonMap("key", "second")), is((Object) "second"));
+    }
+
+    @Test
+    public void shouldKeepEntriesPerResolverChain () throws CalculateException {
+        PropertyCallSite underTest = new PropertyCallSite("size", 0);
+        PropertyResolvers custom = PropertyResolvers.defaults().with(new PropertyResolver() {
+            @Override
+            public Property bind(Class<?> type, String name, int arity) {
+                return new Property() {
+                    @Override
+                    public Object get(Object target, Object... arguments) {
+                        return "custom";
+                    }
+                };
+            }
+        });
+
+        assertThat(underTest.extract(PropertyResolvers.defaults(), Arrays.asList(1)), is((Object) 1));
+        assertThat(underTest.extract(custom, Arrays.asList(1)), is((Object) "custom"));
+    }
+
+    @Test(expected = CalculateException.class)
+    public void shouldFailOnUnknownProperty () throws CalculateException {
+        new PropertyCallSite("unknown", 0).extract(PropertyResolvers.defaults(), "value");
+    }
+}
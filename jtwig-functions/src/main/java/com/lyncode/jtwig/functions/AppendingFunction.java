@@ -0,0 +1,31 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions;
+
+import com.lyncode.jtwig.functions.exceptions.FunctionException;
+
+import java.io.IOException;
+
+/**
+ * A filter able to append its result to the output, used instead of
+ * returning it when it is the last filter of an output tag.
+ */
+public interface AppendingFunction extends JtwigFunction {
+    void append(Appendable output, Object input) throws FunctionException, IOException;
+
+    void append(Appendable output, Object input, Object argument) throws FunctionException, IOException;
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions;
+
+import com.lyncode.jtwig.functions.exceptions.FunctionException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base for functions implementing one or more of {@link Function0} to
+ * {@link Function3}. The arities a function accepts are given by the
+ * interfaces it implements, so calls can be checked once when bound.
+ */
+public abstract class TypedFunction implements JtwigFunction {
+    @Override
+    public Object execute(Object... arguments) throws FunctionException {
+        if (!accepts(arguments.length))
+            throw new FunctionException("Invalid number of arguments, it should be " + arities());
+        switch (arguments.length) {
+            case 0:
+                return ((Function0) this).apply();
+            case 1:
+                return ((Function1) this).apply(arguments[0]);
+            case 2:
+                return ((Function2) this).apply(arguments[0], arguments[1]);
+            default:
+                return ((Function3) this).apply(arguments[0], arguments[1], arguments[2]);
+        }
+    }
+
+    public boolean accepts(int arity) {
+        switch (arity) {
+            case 0:
+                return this instanceof Function0;
+            case 1:
+                return this instanceof Function1;
+            case 2:
+                return this instanceof Function2;
+            case 3:
+                return this instanceof Function3;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks the type of an argument, null values are rejected.
+     */
+    protected static <T> T argument(int number, Object value, Class<T> type) throws FunctionException {
+        if (!type.isInstance(value))
+            throw new FunctionException("Invalid argument " + number + " (" + value + "). It should be an instance of " + type.getName());
+        return type.cast(value);
+    }
+
+    public String arities() {
+        List<String> arities = new ArrayList<String>();
+        for (int arity = 0; arity <= 3; arity++) {
+            if (accepts(arity))
+                arities.add(String.valueOf(arity));
+        }
+        return arities.toString();
+    }
+}
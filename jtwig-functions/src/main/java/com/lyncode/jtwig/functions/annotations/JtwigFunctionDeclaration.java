@@ -27,4 +27,24 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface JtwigFunctionDeclaration {
     String name () default "";
     String[] aliases () default {};
+
+    /**
+     * Pure functions return equal results for equal arguments and have no
+     * side effects, so calls with constant arguments can be evaluated when
+     * templates are compiled and repeated calls can be memoized.
+     */
+    boolean pure () default false;
+
+    /**
+     * Safe functions return text already escaped or meant to be output as
+     * it is, so autoescaping skips outputs ending with them.
+     */
+    boolean safe () default false;
+
+    /**
+     * Functions probing for undefined values, such as defined or default,
+     * receive null for an undefined variable or property used as their first
+     * argument instead of failing the render in strict mode.
+     */
+    boolean probesUndefined () default false;
 }
@@ -16,29 +16,23 @@
 
 package com.lyncode.jtwig.functions.internal.bool;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.*;
-
-@JtwigFunctionDeclaration(name = "constant")
-public class Constant implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "constant", pure = true)
+public class Constant extends TypedFunction implements Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(2))
-                .withArgument(0, notNullValue())
-                .withArgument(1, instanceOf(String.class));
-
-        String constant = (String) arguments[1];
+    public Object apply(Object value, Object name) throws FunctionException {
+        argument(0, value, Object.class);
+        String constant = argument(1, name, String.class);
         int constantNamePosition = constant.lastIndexOf(".");
         String className = constant.substring(0, constantNamePosition);
         String constantName = constant.substring(constantNamePosition+1);
 
         try {
-            return arguments[0].equals(Class.forName(className).getDeclaredField(constantName).get(null));
+            return value.equals(Class.forName(className).getDeclaredField(constantName).get(null));
         } catch (Exception e) {
             throw new FunctionException(e);
         }
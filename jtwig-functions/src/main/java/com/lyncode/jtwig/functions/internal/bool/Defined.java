@@ -16,20 +16,14 @@
 
 package com.lyncode.jtwig.functions.internal.bool;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "defined")
-public class Defined implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "defined", pure = true, probesUndefined = true)
+public class Defined extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        return arguments[0] != null;
+    public Object apply(Object argument) {
+        return argument != null;
     }
 }
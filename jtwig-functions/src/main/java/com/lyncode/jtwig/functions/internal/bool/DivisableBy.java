@@ -16,27 +16,17 @@
 
 package com.lyncode.jtwig.functions.internal.bool;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.instanceOf;
-
-@JtwigFunctionDeclaration(name = "divisable by")
-public class DivisableBy implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "divisable by", pure = true)
+public class DivisableBy extends TypedFunction implements Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(2))
-                .withArgument(0, instanceOf(Number.class))
-                .withArgument(1, instanceOf(Number.class));
-
-
-
-        double value1 = ((Number) arguments[0]).doubleValue();
-        double value2 = ((Number) arguments[1]).doubleValue();
+    public Object apply(Object value, Object divisor) throws FunctionException {
+        double value1 = argument(0, value, Number.class).doubleValue();
+        double value2 = argument(1, divisor, Number.class).doubleValue();
 
         return value1 % value2 == 0;
     }
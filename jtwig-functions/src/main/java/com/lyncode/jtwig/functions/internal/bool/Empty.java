@@ -16,103 +16,25 @@
 
 package com.lyncode.jtwig.functions.internal.bool;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
-import org.hamcrest.BaseMatcher;
-import org.hamcrest.Description;
-import org.hamcrest.Matcher;
 
+import java.util.Collection;
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.nullValue;
-import static org.hamcrest.collection.IsEmptyCollection.empty;
-
-@JtwigFunctionDeclaration(name = "empty")
-public class Empty implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "empty", pure = true)
+public class Empty extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        return anyOf(
-                arguments[0],
-                nullValue(Object.class),
-                emptyList(),
-                emptyMap(),
-                notHasNext(),
-                zeroValue()
-        );
-    }
-
-    private boolean anyOf (Object value, Matcher... matchers) {
-        for (Matcher matcher : matchers)
-            if (matcher.matches(value))
-                return true;
-        return false;
-    }
-
-    private Matcher<Object> emptyMap() {
-        return new BaseMatcher<Object>() {
-            @Override
-            public boolean matches(Object item) {
-                if (item instanceof Map)
-                    return ((Map) item).isEmpty();
-                return false;
-            }
-
-            @Override
-            public void describeTo(Description description) {
-                description.appendDescriptionOf(empty());
-            }
-        };
-    }
-
-    private Matcher<Object> zeroValue() {
-        return new BaseMatcher<Object>() {
-            @Override
-            public boolean matches(Object item) {
-                return equalTo(0).matches(item);
-            }
-
-            @Override
-            public void describeTo(Description description) {
-                description.appendDescriptionOf(equalTo(0));
-            }
-        };
-    }
-
-    private Matcher<Object> emptyList() {
-        return new BaseMatcher<Object>() {
-            @Override
-            public boolean matches(Object item) {
-                return empty().matches(item);
-            }
-
-            @Override
-            public void describeTo(Description description) {
-                description.appendDescriptionOf(empty());
-            }
-        };
-    }
-
-    private Matcher<Object> notHasNext() {
-        return new BaseMatcher<Object>() {
-
-            @Override
-            public boolean matches(Object item) {
-                if (item instanceof Iterable)
-                    return !((Iterable) item).iterator().hasNext();
-                else
-                    return false;
-            }
-
-            @Override
-            public void describeTo(Description description) {
-                description.appendText("not has next");
-            }
-        };
+    public Object apply(Object argument) {
+        if (argument == null)
+            return true;
+        if (argument instanceof Collection)
+            return ((Collection) argument).isEmpty();
+        if (argument instanceof Map)
+            return ((Map) argument).isEmpty();
+        if (argument instanceof Iterable)
+            return !((Iterable) argument).iterator().hasNext();
+        return argument.equals(0);
     }
 }
@@ -16,23 +16,16 @@
 
 package com.lyncode.jtwig.functions.internal.bool;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.instanceOf;
-
-@JtwigFunctionDeclaration(name = "even")
-public class Even implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "even", pure = true)
+public class Even extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1))
-                .withArgument(0, instanceOf(Number.class));
-
-        int value = ((Number) arguments[0]).intValue();
+    public Object apply(Object argument) throws FunctionException {
+        int value = argument(0, argument, Number.class).intValue();
         return value % 2 == 0;
     }
 }
@@ -16,24 +16,18 @@
 
 package com.lyncode.jtwig.functions.internal.bool;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "iterable")
-public class IsIterable implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "iterable", pure = true)
+public class IsIterable extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        return (arguments[0] instanceof Iterable) ||
-                arguments[0].getClass().isArray() ||
-                arguments[0] instanceof Map;
+    public Object apply(Object argument) {
+        return (argument instanceof Iterable) ||
+                argument.getClass().isArray() ||
+                argument instanceof Map;
     }
 }
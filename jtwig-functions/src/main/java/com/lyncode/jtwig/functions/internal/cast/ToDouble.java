@@ -16,30 +16,15 @@
 
 package com.lyncode.jtwig.functions.internal.cast;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.core.IsInstanceOf.instanceOf;
-
-@JtwigFunctionDeclaration(name = "toDouble", aliases = {"toFloat"})
-public class ToDouble implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "toDouble", aliases = {"toFloat"}, pure = true)
+public class ToDouble extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1))
-                .withArgument(0, instanceOf(Number.class));
-
-        if (arguments[0] instanceof Number)
-            return ((Number) arguments[0]).doubleValue();
-        else {
-            try {
-                return Double.valueOf(arguments[0].toString());
-            } catch (NumberFormatException e) {
-                throw new FunctionException(e.getMessage(), e);
-            }
-        }
+    public Object apply(Object argument) throws FunctionException {
+        return argument(0, argument, Number.class).doubleValue();
     }
 }
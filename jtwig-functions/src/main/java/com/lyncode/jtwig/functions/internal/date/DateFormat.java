@@ -16,29 +16,44 @@
 
 package com.lyncode.jtwig.functions.internal.date;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.Function3;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
+import org.apache.commons.lang3.LocaleUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
 
-import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 
-import static com.lyncode.jtwig.functions.util.Requirements.between;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.instanceOf;
+@JtwigFunctionDeclaration(name = "date_format", pure = true)
+public class DateFormat extends TypedFunction implements Function1, Function2, Function3 {
+    private static final String DEFAULT_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
-@JtwigFunctionDeclaration(name = "date_format")
-public class DateFormat implements JtwigFunction {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(between(1, 2))
-                .withArgument(0, instanceOf(Date.class));
+    public Object apply(Object date) throws FunctionException {
+        return format(date, FastDateFormat.getInstance(DEFAULT_PATTERN));
+    }
+
+    @Override
+    public Object apply(Object date, Object pattern) throws FunctionException {
+        return format(date, FastDateFormat.getInstance(pattern.toString()));
+    }
 
-        java.text.DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        if (arguments.length == 2)
-            dateFormat = new SimpleDateFormat(arguments[1].toString());
+    @Override
+    public Object apply(Object date, Object pattern, Object locale) throws FunctionException {
+        try {
+            return format(date, FastDateFormat.getInstance(pattern.toString(), LocaleUtils.toLocale(locale.toString())));
+        } catch (IllegalArgumentException e) {
+            throw new FunctionException(e.getMessage(), e);
+        }
+    }
 
-        return dateFormat.format(arguments[0]);
+    private String format(Object date, FastDateFormat format) throws FunctionException {
+        if (date instanceof Calendar)
+            return format.format((Calendar) date);
+        return format.format(argument(0, date, Date.class));
     }
 }
@@ -16,41 +16,54 @@
 
 package com.lyncode.jtwig.functions.internal.date;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
-import org.hamcrest.BaseMatcher;
-import org.hamcrest.Description;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 import static java.util.regex.Pattern.compile;
-import static org.hamcrest.CoreMatchers.*;
 
-@JtwigFunctionDeclaration(name  = "date_modify")
-public class DateModify implements JtwigFunction {
+@JtwigFunctionDeclaration(name  = "date_modify", pure = true)
+public class DateModify extends TypedFunction implements Function2 {
 
-    private static final String PATTERN = "^([\\\\+\\\\-])([0-9]+) ([a-zA-Z]+)$";
-
-    @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(2))
-                .withArgument(0, instanceOf(Date.class))
-                .withArgument(1, notNullValue())
-                .withArgument(1, hasPattern(PATTERN));
+    private static final Pattern PATTERN = compile("^([\\\\+\\\\-])([0-9]+) ([a-zA-Z]+)$");
+    private static final int MAXIMUM_CACHED_MODIFIERS = 256;
 
+    private final ConcurrentMap<String, Modifier> modifiers = new ConcurrentHashMap<>();
 
+    @Override
+    public Object apply(Object date, Object modification) throws FunctionException {
+        Modifier modifier = modifier(argument(1, modification, Object.class).toString().trim());
         Calendar instance = Calendar.getInstance();
-        instance.setTime((Date) arguments[0]);
+        if (date instanceof Calendar)
+            instance.setTimeInMillis(((Calendar) date).getTimeInMillis());
+        else
+            instance.setTime(argument(0, date, Date.class));
+        instance.add(modifier.field, modifier.amount);
+        return instance.getTime();
+    }
 
-        String modifyString = arguments[1].toString().trim();
+    private Modifier modifier(String modification) throws FunctionException {
+        Modifier modifier = modifiers.get(modification);
+        if (modifier == null) {
+            modifier = parse(modification);
+            if (modifiers.size() < MAXIMUM_CACHED_MODIFIERS)
+                modifiers.putIfAbsent(modification, modifier);
+        }
+        return modifier;
+    }
 
-        Matcher matcher = compile(PATTERN).matcher(modifyString);
-        matcher.find();
+    private Modifier parse(String modification) throws FunctionException {
+        Matcher matcher = PATTERN.matcher(modification);
+        if (!matcher.matches())
+            throw new FunctionException("Invalid argument 1 (" + modification + "). It should match pattern " + PATTERN.pattern());
         int signal = 1;
 
         if (matcher.group(1).equals("-"))
@@ -60,34 +73,28 @@ public class DateModify implements JtwigFunction {
         String type = matcher.group(3).toLowerCase();
 
         if (type.startsWith("day"))
-            instance.add(Calendar.DAY_OF_YEAR, val);
+            return new Modifier(Calendar.DAY_OF_YEAR, val);
         else if (type.startsWith("month"))
-            instance.add(Calendar.MONTH, val);
+            return new Modifier(Calendar.MONTH, val);
         else if (type.startsWith("year"))
-            instance.add(Calendar.YEAR, val);
+            return new Modifier(Calendar.YEAR, val);
         else if (type.startsWith("second"))
-            instance.add(Calendar.SECOND, val);
+            return new Modifier(Calendar.SECOND, val);
         else if (type.startsWith("hour"))
-            instance.add(Calendar.HOUR, val);
+            return new Modifier(Calendar.HOUR, val);
         else if (type.startsWith("minute"))
-            instance.add(Calendar.MINUTE, val);
+            return new Modifier(Calendar.MINUTE, val);
         else
             throw new FunctionException("Unknown type "+matcher.group(3));
-
-        return instance.getTime();
     }
 
-    private BaseMatcher<Object> hasPattern(final String pattern) {
-        return new BaseMatcher<Object>() {
-            @Override
-            public boolean matches(Object item) {
-                return item.toString().matches(pattern);
-            }
+    private static final class Modifier {
+        private final int field;
+        private final int amount;
 
-            @Override
-            public void describeTo(Description description) {
-                description.appendText("matches pattern ").appendValue(pattern);
-            }
-        };
+        private Modifier(int field, int amount) {
+            this.field = field;
+            this.amount = amount;
+        }
     }
 }
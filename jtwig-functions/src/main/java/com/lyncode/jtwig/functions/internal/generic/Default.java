@@ -16,23 +16,17 @@
 
 package com.lyncode.jtwig.functions.internal.generic;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "default")
-public class Default implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "default", pure = true, probesUndefined = true)
+public class Default extends TypedFunction implements Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(2));
-
-        if (arguments[0] == null)
-            return arguments[1];
+    public Object apply(Object value, Object defaultValue) {
+        if (value == null)
+            return defaultValue;
         else
-            return arguments[0];
+            return value;
     }
 }
@@ -16,39 +16,33 @@
 
 package com.lyncode.jtwig.functions.internal.generic;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
 
 import java.util.Iterator;
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "first")
-public class First implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "first", pure = true)
+public class First extends TypedFunction implements Function1 {
 
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        if ((arguments[0] instanceof Iterable) || arguments[0].getClass().isArray()) {
-            ObjectIterator objectIterator = new ObjectIterator(arguments[0]);
+    public Object apply(Object argument) {
+        if ((argument instanceof Iterable) || argument.getClass().isArray()) {
+            ObjectIterator objectIterator = new ObjectIterator(argument);
             if (objectIterator.hasNext()) return objectIterator.next();
             else return null;
         }
-        else if (arguments[0] instanceof Map) {
-            Iterator iterator = ((Map) arguments[0]).keySet().iterator();
+        else if (argument instanceof Map) {
+            Iterator iterator = ((Map) argument).keySet().iterator();
             if (iterator.hasNext())
-                return ((Map) arguments[0]).get(iterator.next());
+                return ((Map) argument).get(iterator.next());
             else
                 return null;
         }
-        else if (arguments[0] instanceof String)
-            return ((String) arguments[0]).charAt(0);
-        else return arguments[0];
+        else if (argument instanceof String)
+            return ((String) argument).charAt(0);
+        else return argument;
     }
 }
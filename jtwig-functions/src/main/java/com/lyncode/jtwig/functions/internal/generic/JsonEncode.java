@@ -16,28 +16,21 @@
 
 package com.lyncode.jtwig.functions.internal.generic;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import org.codehaus.jackson.map.ObjectMapper;
 
 import java.io.IOException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.notNullValue;
-
-@JtwigFunctionDeclaration(name = "json_encode")
-public class JsonEncode implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "json_encode", pure = true)
+public class JsonEncode extends TypedFunction implements Function1 {
     private ObjectMapper mapper = new ObjectMapper();
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1))
-                .withArgument(0, notNullValue());
-
+    public Object apply(Object argument) throws FunctionException {
         try {
-            return mapper.writeValueAsString(arguments[0]);
+            return mapper.writeValueAsString(argument(0, argument, Object.class));
         } catch (IOException e) {
             throw new FunctionException(e);
         }
@@ -16,47 +16,41 @@
 
 package com.lyncode.jtwig.functions.internal.generic;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
 
 import java.util.Iterator;
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "last")
-public class Last implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "last", pure = true)
+public class Last extends TypedFunction implements Function1 {
 
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        if ((arguments[0] instanceof Iterable) || arguments[0].getClass().isArray()) {
-            ObjectIterator objectIterator = new ObjectIterator(arguments[0]);
+    public Object apply(Object argument) {
+        if ((argument instanceof Iterable) || argument.getClass().isArray()) {
+            ObjectIterator objectIterator = new ObjectIterator(argument);
             Object current = null;
             while (objectIterator.hasNext())
                 current = objectIterator.next();
             return current;
         }
-        else if (arguments[0] instanceof Map) {
-            Iterator iterator = ((Map) arguments[0]).keySet().iterator();
+        else if (argument instanceof Map) {
+            Iterator iterator = ((Map) argument).keySet().iterator();
             Object current = null;
             while (iterator.hasNext())
                 current = iterator.next();
             if (current == null)
                 return null;
             else
-                return (((Map) arguments[0]).get(current));
+                return (((Map) argument).get(current));
         }
-        else if (arguments[0] instanceof String) {
-            String argument = (String) arguments[0];
-            if (argument.isEmpty()) return null;
-            return argument.charAt(argument.length() - 1);
+        else if (argument instanceof String) {
+            String value = (String) argument;
+            if (value.isEmpty()) return null;
+            return value.charAt(value.length() - 1);
         }
-        else return arguments[0];
+        else return argument;
     }
 }
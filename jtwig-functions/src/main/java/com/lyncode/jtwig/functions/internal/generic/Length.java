@@ -16,29 +16,26 @@
 
 package com.lyncode.jtwig.functions.internal.generic;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
 
+import java.util.Collection;
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "length")
-public class Length implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "length", pure = true)
+public class Length extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        if ((arguments[0] instanceof Iterable) || arguments[0].getClass().isArray())
-            return new ObjectIterator(arguments[0]).size();
-        else if (arguments[0] instanceof Map)
-            return ((Map) arguments[0]).size();
-        else if (arguments[0] instanceof String)
-            return ((String) arguments[0]).length();
+    public Object apply(Object argument) {
+        if (argument instanceof Collection)
+            return ((Collection) argument).size();
+        else if ((argument instanceof Iterable) || argument.getClass().isArray())
+            return new ObjectIterator(argument).size();
+        else if (argument instanceof Map)
+            return ((Map) argument).size();
+        else if (argument instanceof String)
+            return ((String) argument).length();
         else return 0;
     }
 }
@@ -16,29 +16,23 @@
 
 package com.lyncode.jtwig.functions.internal.generic;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "reverse")
-public class Reverse implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "reverse", pure = true)
+public class Reverse extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-            .withNumberOfArguments(equalTo(1));
-
-        if ((arguments[0] instanceof Iterable) || arguments[0].getClass().isArray())
-            return reverse(new ObjectIterator(arguments[0]), arguments[0] instanceof Iterable);
-        else if (arguments[0] instanceof String)
-            return new StringBuilder(((String) arguments[0])).reverse().toString();
+    public Object apply(Object argument) {
+        if ((argument instanceof Iterable) || argument.getClass().isArray())
+            return reverse(new ObjectIterator(argument), argument instanceof Iterable);
+        else if (argument instanceof String)
+            return new StringBuilder(((String) argument)).reverse().toString();
         else return 0;
     }
 
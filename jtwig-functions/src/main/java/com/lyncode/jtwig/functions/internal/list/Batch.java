@@ -16,7 +16,9 @@
 
 package com.lyncode.jtwig.functions.internal.list;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.Function3;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
@@ -24,35 +26,32 @@ import com.lyncode.jtwig.functions.util.ObjectIterator;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.lyncode.jtwig.functions.util.Requirements.between;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.core.IsInstanceOf.instanceOf;
+@JtwigFunctionDeclaration(name = "batch", pure = true)
+public class Batch extends TypedFunction implements Function2, Function3 {
+    @Override
+    public Object apply(Object input, Object size) throws FunctionException {
+        return batch(input, argument(1, size, Integer.class), false, null);
+    }
 
-@JtwigFunctionDeclaration(name = "batch")
-public class Batch implements JtwigFunction {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(between(2, 3))
-                .withArgument(1, instanceOf(Integer.class));
+    public Object apply(Object input, Object size, Object padding) throws FunctionException {
+        return batch(input, argument(1, size, Integer.class), true, padding);
+    }
 
-        ObjectIterator iterator = new ObjectIterator(arguments[0]);
-        int groupSize = (Integer) arguments[1];
-        boolean end = false;
+    private List<List<Object>> batch(Object input, int groupSize, boolean pad, Object padding) {
+        ObjectIterator iterator = new ObjectIterator(input);
         List<List<Object>> result = new ArrayList<List<Object>>();
         while (iterator.hasNext()) {
             List<Object> batch = new ArrayList<Object>();
             for (int i=0;i<groupSize;i++) {
                 if (iterator.hasNext())
                     batch.add(iterator.next());
-                else if (arguments.length == 3)
-                    batch.add(arguments[2]);
+                else if (pad)
+                    batch.add(padding);
             }
             result.add(batch);
         }
 
         return result;
     }
-
-
 }
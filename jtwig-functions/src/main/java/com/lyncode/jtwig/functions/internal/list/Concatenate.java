@@ -20,7 +20,7 @@ import com.lyncode.jtwig.functions.JtwigFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-@JtwigFunctionDeclaration(name = "concatenate", aliases = { "concat" })
+@JtwigFunctionDeclaration(name = "concatenate", aliases = { "concat" }, pure = true)
 public class Concatenate implements JtwigFunction {
     @Override
     public Object execute(Object... arguments) throws FunctionException {
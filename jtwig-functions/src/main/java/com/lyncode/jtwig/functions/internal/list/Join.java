@@ -16,31 +16,32 @@
 
 package com.lyncode.jtwig.functions.internal.list;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import org.apache.commons.lang3.StringUtils;
 
-import static com.lyncode.jtwig.functions.util.Requirements.between;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-
-@JtwigFunctionDeclaration(name = "join")
-public class Join implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "join", pure = true)
+public class Join extends TypedFunction implements Function1, Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(between(1, 2));
+    public Object apply(Object input) throws FunctionException {
+        return join(input, "");
+    }
 
-        String separator = "";
-        if (arguments.length == 2)
-            separator = arguments[1].toString();
+    @Override
+    public Object apply(Object input, Object separator) throws FunctionException {
+        return join(input, separator.toString());
+    }
 
-        if (arguments[0] == null)
+    private String join(Object input, String separator) throws FunctionException {
+        if (input == null)
             return "";
-        else if (arguments[0] instanceof Iterable)
-            return StringUtils.join((Iterable) arguments[0], separator);
-        else if (arguments[0].getClass().isArray())
-            return StringUtils.join((Object[]) arguments[0], separator);
+        else if (input instanceof Iterable)
+            return StringUtils.join((Iterable) input, separator);
+        else if (input.getClass().isArray())
+            return StringUtils.join((Object[]) input, separator);
         else throw new FunctionException("First arguments must be a list or an array.");
     }
 }
@@ -22,17 +22,14 @@ import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
 import java.util.*;
 
-import static com.lyncode.jtwig.functions.util.Requirements.isArray;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.Matchers.*;
-
-@JtwigFunctionDeclaration(name = "merge")
+@JtwigFunctionDeclaration(name = "merge", pure = true)
 public class Merge implements JtwigFunction {
     @Override
     public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(greaterThan(1))
-                .withArgument(0, anyOf(instanceOf(Iterable.class), instanceOf(Map.class), isArray()));
+        if (arguments.length < 2)
+            throw new FunctionException("Invalid number of arguments, it should be at least 2");
+        if (!(arguments[0] instanceof Iterable || arguments[0] instanceof Map || (arguments[0] != null && arguments[0].getClass().isArray())))
+            throw new FunctionException("Invalid argument 0 (" + arguments[0] + "). It should be a list, a map or an array");
 
         if (arguments[0] instanceof Iterable)
             return mergeList(arguments);
@@ -16,7 +16,8 @@
 
 package com.lyncode.jtwig.functions.internal.list;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function3;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import com.lyncode.jtwig.functions.util.ObjectIterator;
@@ -24,31 +25,24 @@ import com.lyncode.jtwig.functions.util.ObjectIterator;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.lyncode.jtwig.functions.util.Requirements.isArray;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 import static java.lang.Math.min;
-import static org.hamcrest.CoreMatchers.*;
 
-@JtwigFunctionDeclaration(name = "slice")
-public class Slice implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "slice", pure = true)
+public class Slice extends TypedFunction implements Function3 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(3))
-                .withArgument(0, anyOf(instanceOf(String.class), instanceOf(Iterable.class), isArray()))
-                .withArgument(1, instanceOf(Integer.class))
-                .withArgument(2, instanceOf(Integer.class));
-
-        int begin = (Integer) arguments[1];
-        int length = (Integer) arguments[2];
-
-        if (arguments[0] instanceof String) {
-            String input = (String) arguments[0];
-            if (input.length() < begin) return "";
-            return input.substring(begin, min(input.length(), begin + length));
+    public Object apply(Object input, Object start, Object size) throws FunctionException {
+        if (!(input instanceof String || input instanceof Iterable || (input != null && input.getClass().isArray())))
+            throw new FunctionException("Invalid argument 0 (" + input + "). It should be a string, a list or an array");
+        int begin = argument(1, start, Integer.class);
+        int length = argument(2, size, Integer.class);
+
+        if (input instanceof String) {
+            String value = (String) input;
+            if (value.length() < begin) return "";
+            return value.substring(begin, min(value.length(), begin + length));
         }
 
-        ObjectIterator iterator = new ObjectIterator(arguments[0]);
+        ObjectIterator iterator = new ObjectIterator(input);
         List list = new ArrayList();
         int i = 0;
         while (iterator.hasNext()) {
@@ -59,7 +53,7 @@ public class Slice implements JtwigFunction {
             i++;
         }
 
-        if (arguments[0] instanceof Iterable)
+        if (input instanceof Iterable)
             return list;
         else
             return list.toArray();
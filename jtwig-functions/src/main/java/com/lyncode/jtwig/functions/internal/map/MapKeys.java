@@ -16,24 +16,18 @@
 
 package com.lyncode.jtwig.functions.internal.map;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
 import java.util.ArrayList;
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.instanceOf;
-
-@JtwigFunctionDeclaration(name = "keys")
-public class MapKeys implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "keys", pure = true)
+public class MapKeys extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1))
-                .withArgument(0, instanceOf(Map.class));
-        return new ArrayList(((Map)arguments[0]).keySet());
+    public Object apply(Object argument) throws FunctionException {
+        return new ArrayList(argument(0, argument, Map.class).keySet());
     }
 }
@@ -16,32 +16,27 @@
 
 package com.lyncode.jtwig.functions.internal.math;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 import static java.lang.Math.abs;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.instanceOf;
 
-@JtwigFunctionDeclaration(name = "abs")
-public class Abs implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "abs", pure = true)
+public class Abs extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1))
-                .withArgument(0, instanceOf(Number.class));
-
-        if (arguments[0] instanceof Double)
-            return abs((Double) arguments[0]);
-        else if (arguments[0] instanceof Float)
-            return abs((Float) arguments[0]);
-        else if (arguments[0] instanceof Integer)
-            return abs((Integer) arguments[0]);
-        else if (arguments[0] instanceof Long)
-            return abs((Long) arguments[0]);
+    public Object apply(Object argument) throws FunctionException {
+        argument(0, argument, Number.class);
+        if (argument instanceof Double)
+            return abs((Double) argument);
+        else if (argument instanceof Float)
+            return abs((Float) argument);
+        else if (argument instanceof Integer)
+            return abs((Integer) argument);
+        else if (argument instanceof Long)
+            return abs((Long) argument);
         else
-            return arguments[0];
+            return argument;
     }
 }
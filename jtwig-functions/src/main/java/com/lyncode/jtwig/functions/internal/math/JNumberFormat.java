@@ -16,51 +16,120 @@
 
 package com.lyncode.jtwig.functions.internal.math;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.Function3;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import static com.lyncode.jtwig.functions.util.Requirements.between;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.core.IsInstanceOf.instanceOf;
+@JtwigFunctionDeclaration(name = "number_format", pure = true)
+public class JNumberFormat extends TypedFunction implements Function1, Function2, Function3 {
+    private static final int MAXIMUM_CACHED_FORMATS = 64;
+    private static final char UNSET = '\uffff';
+
+    // prototypes are never formatted with directly, each call works on its own clone
+    private final ConcurrentMap<Key, DecimalFormat> prototypes = new ConcurrentHashMap<>();
+
+    @Override
+    public Object apply(Object number) throws FunctionException {
+        return format(number, -1, UNSET, UNSET);
+    }
+
+    @Override
+    public Object apply(Object number, Object digits) throws FunctionException {
+        return format(number, argument(1, digits, Integer.class), UNSET, UNSET);
+    }
+
+    @Override
+    public Object apply(Object number, Object digits, Object decimalSeparator) throws FunctionException {
+        return format(number, argument(1, digits, Integer.class), separator(decimalSeparator), UNSET);
+    }
+
+    @Override
+    public boolean accepts(int arity) {
+        return arity == 4 || super.accepts(arity);
+    }
+
+    @Override
+    public String arities() {
+        return "between 1 and 4";
+    }
 
-@JtwigFunctionDeclaration(name = "number_format")
-public class JNumberFormat implements JtwigFunction {
     @Override
     public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(between(1, 4))
-                .withArgument(1, instanceOf(Integer.class));
+        if (arguments.length != 4)
+            return super.execute(arguments);
+        return format(arguments[0], argument(1, arguments[1], Integer.class), separator(arguments[2]), separator(arguments[3]));
+    }
+
+    private char separator(Object separator) {
+        String value = separator.toString();
+        return value.isEmpty() ? '\0' : value.charAt(0);
+    }
+
+    private String format(Object number, int digits, char decimalSeparator, char groupingSeparator) {
+        Key key = new Key(digits, decimalSeparator, groupingSeparator, Locale.getDefault());
+        DecimalFormat prototype = prototypes.get(key);
+        if (prototype == null) {
+            prototype = create(key);
+            if (prototypes.size() >= MAXIMUM_CACHED_FORMATS)
+                prototypes.clear();
+            prototypes.putIfAbsent(key, prototype);
+        }
+        return ((DecimalFormat) prototype.clone()).format(number);
+    }
 
+    private DecimalFormat create(Key key) {
         DecimalFormat numberFormat = new DecimalFormat();
         DecimalFormatSymbols decimalFormatSymbols = numberFormat.getDecimalFormatSymbols();
 
-        if (arguments.length > 1) {
-            numberFormat.setMaximumFractionDigits((Integer) arguments[1]);
-            numberFormat.setMinimumFractionDigits((Integer) arguments[1]);
+        if (key.digits >= 0) {
+            numberFormat.setMaximumFractionDigits(key.digits);
+            numberFormat.setMinimumFractionDigits(key.digits);
         }
+        if (key.decimalSeparator != UNSET)
+            decimalFormatSymbols.setDecimalSeparator(key.decimalSeparator);
+        if (key.groupingSeparator != UNSET)
+            decimalFormatSymbols.setGroupingSeparator(key.groupingSeparator);
 
-        if (arguments.length > 2) {
-            String separator = arguments[2].toString();
-            if (!separator.isEmpty())
-                decimalFormatSymbols.setDecimalSeparator(separator.charAt(0));
-            else
-                decimalFormatSymbols.setDecimalSeparator('\0');
-        }
+        numberFormat.setDecimalFormatSymbols(decimalFormatSymbols);
+        return numberFormat;
+    }
+
+    private static final class Key {
+        private final int digits;
+        private final char decimalSeparator;
+        private final char groupingSeparator;
+        private final Locale locale;
 
-        if (arguments.length > 3) {
-            String separator = arguments[3].toString();
-            if (!separator.isEmpty())
-                decimalFormatSymbols.setGroupingSeparator(separator.charAt(0));
-            else
-                decimalFormatSymbols.setGroupingSeparator('\0');
+        private Key(int digits, char decimalSeparator, char groupingSeparator, Locale locale) {
+            this.digits = digits;
+            this.decimalSeparator = decimalSeparator;
+            this.groupingSeparator = groupingSeparator;
+            this.locale = locale;
         }
 
-        numberFormat.setDecimalFormatSymbols(decimalFormatSymbols);
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return digits == key.digits
+                    && decimalSeparator == key.decimalSeparator
+                    && groupingSeparator == key.groupingSeparator
+                    && locale.equals(key.locale);
+        }
 
-        return numberFormat.format(arguments[0]);
+        @Override
+        public int hashCode() {
+            return ((digits * 31 + decimalSeparator) * 31 + groupingSeparator) * 31 + locale.hashCode();
+        }
     }
 }
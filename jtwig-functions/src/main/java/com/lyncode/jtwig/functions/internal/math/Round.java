@@ -16,39 +16,34 @@
 
 package com.lyncode.jtwig.functions.internal.math;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.between;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.core.AnyOf.anyOf;
-import static org.hamcrest.core.IsInstanceOf.instanceOf;
-
-@JtwigFunctionDeclaration(name = "round")
-public class Round implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "round", pure = true)
+public class Round extends TypedFunction implements Function1, Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(between(1, 2))
-                .withArgument(0, anyOf(instanceOf(Integer.class), instanceOf(Double.class), instanceOf(Float.class)));
-
-        if (arguments[0] instanceof Integer)
-            return arguments[0];
-        else
-            arguments[0] = (Double) arguments[0];
-
-        String strategy = "common";
-        if (arguments.length == 2)
-            strategy = arguments[1].toString().toLowerCase();
+    public Object apply(Object argument) throws FunctionException {
+        return apply(argument, "common");
+    }
 
-        switch (RoundStrategy.valueOf(strategy.toUpperCase())) {
+    @Override
+    public Object apply(Object argument, Object strategy) throws FunctionException {
+        if (!(argument instanceof Integer || argument instanceof Double || argument instanceof Float))
+            throw new FunctionException("Invalid argument 0 (" + argument + "). It should be an integer, double or float");
+        if (argument instanceof Integer)
+            return argument;
+
+        double value = ((Number) argument).doubleValue();
+        switch (RoundStrategy.valueOf(strategy.toString().toUpperCase())) {
             case CEIL:
-                return (int) Math.ceil((Double) arguments[0]);
+                return (int) Math.ceil(value);
             case FLOOR:
-                return (int) Math.floor((Double) arguments[0]);
+                return (int) Math.floor(value);
             default:
-                return (int) Math.round((Double) arguments[0]);
+                return (int) Math.round(value);
         }
     }
 
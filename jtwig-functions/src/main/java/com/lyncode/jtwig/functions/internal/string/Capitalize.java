@@ -16,23 +16,17 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "capitalize")
-public class Capitalize implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "capitalize", pure = true)
+public class Capitalize extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        if (arguments[0] == null)
+    public Object apply(Object argument) {
+        if (argument == null)
             return null;
-        String input = arguments[0].toString();
+        String input = argument.toString();
         if (input.length() > 0)
             return input.substring(0, 1).toUpperCase() + input.substring(1);
         else
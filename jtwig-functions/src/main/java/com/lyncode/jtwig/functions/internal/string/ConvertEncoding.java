@@ -16,21 +16,16 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function3;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 import static java.nio.charset.Charset.forName;
-import static org.hamcrest.CoreMatchers.equalTo;
 
-@JtwigFunctionDeclaration(name = "convert_encoding")
-public class ConvertEncoding implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "convert_encoding", pure = true)
+public class ConvertEncoding extends TypedFunction implements Function3 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(3));
-
-        return new String(arguments[0].toString().getBytes(forName(arguments[1].toString())), forName(arguments[2].toString()));
+    public Object apply(Object input, Object from, Object to) {
+        return new String(input.toString().getBytes(forName(from.toString())), forName(to.toString()));
     }
 }
@@ -16,52 +16,65 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.AppendingFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
-import org.apache.commons.lang3.StringEscapeUtils;
+import com.lyncode.jtwig.functions.util.Escaper;
 
+import java.io.IOException;
 import java.util.List;
 
-import static com.lyncode.jtwig.functions.util.Requirements.between;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 import static java.util.Arrays.asList;
 
-@JtwigFunctionDeclaration(name = "escape", aliases = { "e" })
-public class Escape implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "escape", aliases = { "e" }, pure = true, safe = true)
+public class Escape extends TypedFunction implements Function1, Function2, AppendingFunction {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(between(1, 2));
+    public Object apply(Object input) throws FunctionException {
+        return Escaper.HTML.escape(input.toString());
+    }
 
-        String strategy = "html";
-        if (arguments.length == 2)
-            strategy = arguments[1].toString().toLowerCase();
+    @Override
+    public Object apply(Object input, Object strategy) throws FunctionException {
+        return escaper(strategy).escape(input.toString());
+    }
 
-        switch (EscapeStrategy.strategyByName(strategy.toLowerCase())) {
-            case HTML:
-                return StringEscapeUtils.escapeHtml4(arguments[0].toString());
-            case JAVASCRIPT:
-                return StringEscapeUtils.escapeEcmaScript(arguments[0].toString());
-            case XML:
-                return StringEscapeUtils.escapeXml(arguments[0].toString());
-            default:
-                throw new FunctionException("Unknown escaping strategy");
-        }
+    @Override
+    public void append(Appendable output, Object input) throws IOException {
+        Escaper.HTML.escape(input.toString(), output);
+    }
 
+    @Override
+    public void append(Appendable output, Object input, Object strategy) throws FunctionException, IOException {
+        escaper(strategy).escape(input.toString(), output);
+    }
+
+    private Escaper escaper(Object strategy) throws FunctionException {
+        EscapeStrategy escapeStrategy = EscapeStrategy.strategyByName(strategy.toString().toLowerCase());
+        if (escapeStrategy == null)
+            throw new FunctionException("Unknown escaping strategy");
+        return escapeStrategy.escaper;
     }
 
     public static enum EscapeStrategy {
-        HTML("html"),
-        JAVASCRIPT("js", "javascript"),
-        XML("xml");
+        HTML(Escaper.HTML, "html"),
+        JAVASCRIPT(Escaper.JAVASCRIPT, "js", "javascript"),
+        XML(Escaper.XML, "xml");
 
+        private Escaper escaper;
         private List<String> representations;
 
-        EscapeStrategy(String... representations) {
+        EscapeStrategy(Escaper escaper, String... representations) {
+            this.escaper = escaper;
             this.representations = asList(representations);
         }
 
+        public Escaper getEscaper() {
+            return escaper;
+        }
+
         public static EscapeStrategy strategyByName(String name) {
             for (EscapeStrategy escape : EscapeStrategy.values()) {
                 if (escape.representations.contains(name))
@@ -20,16 +20,14 @@ import com.lyncode.jtwig.functions.JtwigFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 import static java.util.Arrays.copyOfRange;
-import static org.hamcrest.Matchers.greaterThan;
 
-@JtwigFunctionDeclaration(name = "format")
+@JtwigFunctionDeclaration(name = "format", pure = true)
 public class Format implements JtwigFunction {
     @Override
     public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(greaterThan(0));
+        if (arguments.length == 0)
+            throw new FunctionException("Invalid number of arguments, it should be at least 1");
 
         if (arguments[0] == null) return null;
         String input = arguments[0].toString();
@@ -16,22 +16,16 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "lower")
-public class Lower implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "lower", pure = true)
+public class Lower extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        if (arguments[0] == null)
+    public Object apply(Object argument) {
+        if (argument == null)
             return null;
-        return arguments[0].toString().toLowerCase();
+        return argument.toString().toLowerCase();
     }
 }
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions.internal.string;
+
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
+import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
+import com.lyncode.jtwig.functions.util.SafeString;
+
+@JtwigFunctionDeclaration(name = "raw", pure = true, safe = true)
+public class Raw extends TypedFunction implements Function1 {
+    @Override
+    public Object apply(Object argument) {
+        if (argument == null || argument instanceof SafeString)
+            return argument;
+        return new SafeString(argument.toString());
+    }
+}
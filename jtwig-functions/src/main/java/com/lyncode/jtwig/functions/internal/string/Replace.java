@@ -16,27 +16,20 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.instanceOf;
-
-@JtwigFunctionDeclaration(name = "replace")
-public class Replace implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "replace", pure = true)
+public class Replace extends TypedFunction implements Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(2))
-                .withArgument(1, instanceOf(Map.class));
-
-        if (arguments[0] == null) return null;
-        String input = arguments[0].toString();
-        Map<String, Object> replacements = (Map<String, Object>) arguments[1];
+    public Object apply(Object argument, Object replacementMap) throws FunctionException {
+        Map<String, Object> replacements = argument(1, replacementMap, Map.class);
+        if (argument == null) return null;
+        String input = argument.toString();
         for (String key : replacements.keySet())
             if (replacements.get(key) != null)
                 input = input.replace(key, replacements.get(key).toString());
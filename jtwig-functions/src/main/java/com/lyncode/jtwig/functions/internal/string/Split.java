@@ -16,23 +16,18 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 import static java.util.Arrays.asList;
-import static org.hamcrest.CoreMatchers.equalTo;
 
-@JtwigFunctionDeclaration(name = "split")
-public class Split implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "split", pure = true)
+public class Split extends TypedFunction implements Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(2));
-
-        if (arguments[0] == null) return null;
-        if (arguments[1] == null) return arguments[0];
-        return asList(arguments[0].toString().split(arguments[1].toString()));
+    public Object apply(Object input, Object separator) {
+        if (input == null) return null;
+        if (separator == null) return input;
+        return asList(input.toString().split(separator.toString()));
     }
 }
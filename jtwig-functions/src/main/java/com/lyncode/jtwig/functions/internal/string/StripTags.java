@@ -16,24 +16,22 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.Function2;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 
 import static com.lyncode.jtwig.functions.util.HtmlUtils.stripTags;
-import static com.lyncode.jtwig.functions.util.Requirements.between;
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
 
-@JtwigFunctionDeclaration(name = "striptags")
-public class StripTags implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "striptags", pure = true)
+public class StripTags extends TypedFunction implements Function1, Function2 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(between(1, 2));
-
-        String input = arguments[0].toString();
-        String allowed = arguments.length == 2 ? arguments[1].toString() : "";
+    public Object apply(Object input) {
+        return stripTags(input.toString(), "");
+    }
 
-        return stripTags(input, allowed);
+    @Override
+    public Object apply(Object input, Object allowed) {
+        return stripTags(input.toString(), allowed.toString());
     }
 }
@@ -16,23 +16,17 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
-import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import org.apache.commons.lang3.text.WordUtils;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "title")
-public class Title implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "title", pure = true)
+public class Title extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        if (arguments[0] == null)
+    public Object apply(Object argument) {
+        if (argument == null)
             return null;
-        return WordUtils.capitalize((String) arguments[0]);
+        return WordUtils.capitalize((String) argument);
     }
 }
@@ -16,7 +16,8 @@
 
 package com.lyncode.jtwig.functions.internal.string;
 
-import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.Function1;
+import com.lyncode.jtwig.functions.TypedFunction;
 import com.lyncode.jtwig.functions.annotations.JtwigFunctionDeclaration;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import org.apache.commons.lang3.StringUtils;
@@ -28,25 +29,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-import static com.lyncode.jtwig.functions.util.Requirements.requires;
-import static org.hamcrest.CoreMatchers.equalTo;
-
-@JtwigFunctionDeclaration(name = "url_encode")
-public class UrlEncode implements JtwigFunction {
+@JtwigFunctionDeclaration(name = "url_encode", pure = true)
+public class UrlEncode extends TypedFunction implements Function1 {
     @Override
-    public Object execute(Object... arguments) throws FunctionException {
-        requires(arguments)
-                .withNumberOfArguments(equalTo(1));
-
-        if (arguments[0] == null)
+    public Object apply(Object argument) throws FunctionException {
+        if (argument == null)
             return null;
-        try {
-            if (arguments[0] instanceof Map)
-                return encodeMap((Map) arguments[0]);
-            return URLEncoder.encode(arguments[0].toString(), Charset.defaultCharset().displayName());
-        } catch (UnsupportedEncodingException e) {
-            throw new FunctionException(e);
-        }
+        if (argument instanceof Map)
+            return encodeMap((Map) argument);
+        return encode(argument.toString());
     }
 
     private String encodeMap(Map argument) throws FunctionException {
@@ -32,71 +32,46 @@ import com.lyncode.jtwig.functions.internal.math.JNumberFormat;
 import com.lyncode.jtwig.functions.internal.math.Round;
 import com.lyncode.jtwig.functions.internal.string.*;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Functions available to templates, looked up by name. Every repository
+ * extends the built-in functions, which are created once and shared.
+ *
+ * A repository can be frozen once configured, it is then safe to share
+ * between threads. Per render additions go to an {@link OverlayFunctionRepository}.
+ */
 public abstract class AbstractFunctionRepository {
-    private Map<String, JtwigFunction> functionMap = new HashMap<String, JtwigFunction>();
+    private final AbstractFunctionRepository parent;
+    private volatile Map<String, JtwigFunction> functionMap = new HashMap<String, JtwigFunction>();
+    private volatile boolean frozen;
 
     public AbstractFunctionRepository(JtwigFunction... jtwigFunctions) {
-        add(
-                // List functions
-                new Concatenate(),
-                new Join(),
-                new Batch(),
-                new Merge(),
-                new Slice(),
-                new MapKeys(),
-
-                // String function
-                new Upper(),
-                new Lower(),
-                new StripTags(),
-                new Trim(),
-                new Split(),
-                new Capitalize(),
-                new Title(),
-                new Replace(),
-                new Format(),
-                new Nl2Br(),
-                new UrlEncode(),
-                new Escape(),
-
-                // Date Functions
-                new DateModify(),
-                new DateFormat(),
-                new ConvertEncoding(),
-
-                // Math functions
-                new Abs(),
-                new JNumberFormat(),
-                new Round(),
-
-                // Cast functions
-                new ToDouble(),
-                new ToInt(),
-
-                // Generic functions
-                new Length(),
-                new Default(),
-                new First(),
-                new Last(),
-                new JsonEncode(),
-                new Reverse(),
-
-                // Boolean functions
-                new Empty(),
-                new Constant(),
-                new Defined(),
-                new Even(),
-                new Odd(),
-                new IsIterable(),
-                new IsNull(),
-                new DivisableBy()
-        );
+        this(BuiltInFunctions.REPOSITORY, jtwigFunctions);
+    }
+
+    protected AbstractFunctionRepository(AbstractFunctionRepository parent, JtwigFunction... jtwigFunctions) {
+        this.parent = parent;
         add(jtwigFunctions);
     }
 
+    /**
+     * Makes this repository read only.
+     *
+     * @return this repository
+     */
+    public AbstractFunctionRepository freeze() {
+        functionMap = Collections.unmodifiableMap(new HashMap<>(functionMap));
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
     public void add(JtwigFunction... jtwigFunctions) {
         for (JtwigFunction jtwigFunction : jtwigFunctions)
             add(jtwigFunction);
@@ -128,6 +103,8 @@ public abstract class AbstractFunctionRepository {
     }
 
     public void add(JtwigFunction jtwigFunction, String name, String... aliases) {
+        if (frozen)
+            throw new IllegalStateException("Unable to add function " + name + ", the repository is frozen");
         functionMap.put(name, jtwigFunction);
         for (String alias : aliases) {
             functionMap.put(alias, jtwigFunction);
@@ -135,7 +112,81 @@ public abstract class AbstractFunctionRepository {
     }
 
     public JtwigFunction retrieve (String functionName) throws FunctionNotFoundException {
-        if (!functionMap.containsKey(functionName)) throw new FunctionNotFoundException();
-        return functionMap.get(functionName);
+        JtwigFunction function = find(functionName);
+        if (function == null) throw new FunctionNotFoundException("Function " + functionName + " not found");
+        return function;
+    }
+
+    /**
+     * @return the function registered with the given name or null if there is none
+     */
+    public JtwigFunction find (String functionName) {
+        JtwigFunction function = functionMap.get(functionName);
+        if (function == null && parent != null)
+            return parent.find(functionName);
+        return function;
+    }
+
+    private static class BuiltInFunctions extends AbstractFunctionRepository {
+        private static final AbstractFunctionRepository REPOSITORY = new BuiltInFunctions().freeze();
+
+        private BuiltInFunctions() {
+            super((AbstractFunctionRepository) null,
+                    // List functions
+                    new Concatenate(),
+                    new Join(),
+                    new Batch(),
+                    new Merge(),
+                    new Slice(),
+                    new MapKeys(),
+
+                    // String function
+                    new Upper(),
+                    new Lower(),
+                    new StripTags(),
+                    new Trim(),
+                    new Split(),
+                    new Capitalize(),
+                    new Title(),
+                    new Replace(),
+                    new Format(),
+                    new Nl2Br(),
+                    new UrlEncode(),
+                    new Escape(),
+                    new Raw(),
+
+                    // Date Functions
+                    new DateModify(),
+                    new DateFormat(),
+                    new ConvertEncoding(),
+
+                    // Math functions
+                    new Abs(),
+                    new JNumberFormat(),
+                    new Round(),
+
+                    // Cast functions
+                    new ToDouble(),
+                    new ToInt(),
+
+                    // Generic functions
+                    new Length(),
+                    new Default(),
+                    new First(),
+                    new Last(),
+                    new JsonEncode(),
+                    new Reverse(),
+
+                    // Boolean functions
+                    new Empty(),
+                    new Constant(),
+                    new Defined(),
+                    new Even(),
+                    new Odd(),
+                    new IsIterable(),
+                    new IsNull(),
+                    new DivisableBy()
+            );
+        }
     }
 }
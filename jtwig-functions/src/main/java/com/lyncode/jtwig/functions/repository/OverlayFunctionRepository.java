@@ -0,0 +1,29 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions.repository;
+
+import com.lyncode.jtwig.functions.JtwigFunction;
+
+/**
+ * Thin mutable layer over a shared repository: functions added here shadow
+ * the ones of the parent, which is left untouched.
+ */
+public class OverlayFunctionRepository extends AbstractFunctionRepository {
+    public OverlayFunctionRepository(AbstractFunctionRepository parent, JtwigFunction... functions) {
+        super(parent, functions);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions.util;
+
+import org.apache.commons.lang3.text.translate.EntityArrays;
+
+import java.io.IOException;
+
+/**
+ * Escapes text with a replacement table indexed by character. Runs of
+ * characters without a replacement are copied in bulk, and the escaped text
+ * can be appended straight to its destination.
+ */
+public final class Escaper {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    public static final Escaper HTML = new Escaper(table(EntityArrays.BASIC_ESCAPE(), EntityArrays.ISO8859_1_ESCAPE(), EntityArrays.HTML40_EXTENDED_ESCAPE()), Character.MAX_VALUE);
+    public static final Escaper XML = new Escaper(table(EntityArrays.BASIC_ESCAPE(), EntityArrays.APOS_ESCAPE()), Character.MAX_VALUE);
+    public static final Escaper JAVASCRIPT = new Escaper(javascript(), 0x7f);
+
+    private final String[] table;
+    private final int unicodeAbove;
+
+    private Escaper(String[] table, int unicodeAbove) {
+        this.table = table;
+        this.unicodeAbove = unicodeAbove;
+    }
+
+    /**
+     * @return the escaped input, or the input itself when nothing needs escaping
+     */
+    public String escape(String input) {
+        int index = next(input, 0);
+        if (index == input.length())
+            return input;
+        StringBuilder builder = new StringBuilder(input.length() + 16);
+        try {
+            escape(input, index, builder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    public void escape(CharSequence input, Appendable output) throws IOException {
+        escape(input, next(input, 0), output);
+    }
+
+    private void escape(CharSequence input, int index, Appendable output) throws IOException {
+        int start = 0;
+        int length = input.length();
+        while (index < length) {
+            if (index > start)
+                output.append(input, start, index);
+            char character = input.charAt(index);
+            if (character < table.length && table[character] != null)
+                output.append(table[character]);
+            else
+                unicode(character, output);
+            start = index + 1;
+            index = next(input, start);
+        }
+        if (start < length)
+            output.append(input, start, length);
+    }
+
+    private int next(CharSequence input, int from) {
+        int length = input.length();
+        for (int index = from; index < length; index++) {
+            char character = input.charAt(index);
+            if (character > unicodeAbove || (character < table.length && table[character] != null))
+                return index;
+        }
+        return length;
+    }
+
+    private static void unicode(char character, Appendable output) throws IOException {
+        output.append('\\').append('u')
+                .append(HEX[(character >> 12) & 0xF])
+                .append(HEX[(character >> 8) & 0xF])
+                .append(HEX[(character >> 4) & 0xF])
+                .append(HEX[character & 0xF]);
+    }
+
+    private static String[] table(String[][]... entities) {
+        int size = 0;
+        for (String[][] pairs : entities) {
+            for (String[] pair : pairs)
+                size = Math.max(size, pair[0].charAt(0) + 1);
+        }
+        String[] table = new String[size];
+        for (String[][] pairs : entities) {
+            for (String[] pair : pairs)
+                table[pair[0].charAt(0)] = pair[1];
+        }
+        return table;
+    }
+
+    private static String[] javascript() {
+        String[] table = new String[0x80];
+        StringBuilder builder = new StringBuilder();
+        for (char character = 0; character < 0x20; character++) {
+            builder.setLength(0);
+            try {
+                unicode(character, builder);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            table[character] = builder.toString();
+        }
+        for (String[] pair : EntityArrays.JAVA_CTRL_CHARS_ESCAPE())
+            table[pair[0].charAt(0)] = pair[1];
+        table['\''] = "\\'";
+        table['"'] = "\\\"";
+        table['\\'] = "\\\\";
+        table['/'] = "\\/";
+        return table;
+    }
+}
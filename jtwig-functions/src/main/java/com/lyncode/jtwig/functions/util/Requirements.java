@@ -33,18 +33,14 @@ public class Requirements {
 
 
     public Requirements withNumberOfArguments(Matcher<Integer> predicate) throws FunctionException {
-        BaseDescription description = new StringDescription();
-        predicate.describeTo(description);
         if (!predicate.matches(arguments.length))
-            throw new FunctionException("Invalid number of arguments, it should be "+description.toString());
+            throw new FunctionException("Invalid number of arguments, it should be "+StringDescription.toString(predicate));
         return this;
     }
 
     public Requirements withArgument (int number, Matcher<Object> predicate) throws FunctionException {
-        BaseDescription description = new StringDescription();
-        predicate.describeTo(description);
         if (!predicate.matches(arguments[number]))
-            throw new FunctionException("Invalid argument "+number+" ("+arguments[number]+"). It should "+description.toString());
+            throw new FunctionException("Invalid argument "+number+" ("+arguments[number]+"). It should "+StringDescription.toString(predicate));
         return this;
     }
 
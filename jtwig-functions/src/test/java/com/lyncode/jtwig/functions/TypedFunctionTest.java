@@ -0,0 +1,48 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions;
+
+import com.lyncode.jtwig.functions.exceptions.FunctionException;
+import com.lyncode.jtwig.functions.internal.string.Escape;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TypedFunctionTest {
+    private TypedFunction underTest = new Escape();
+
+    @Test
+    public void shouldAcceptTheImplementedArities() throws Exception {
+        assertThat(underTest.accepts(0), is(false));
+        assertThat(underTest.accepts(1), is(true));
+        assertThat(underTest.accepts(2), is(true));
+        assertThat(underTest.accepts(3), is(false));
+        assertThat(underTest.arities(), is("[1, 2]"));
+    }
+
+    @Test
+    public void shouldDispatchByNumberOfArguments() throws Exception {
+        assertThat(underTest.execute("<"), is((Object) "&lt;"));
+        assertThat(underTest.execute("'", "js"), is((Object) "\\'"));
+    }
+
+    @Test(expected = FunctionException.class)
+    public void shouldRejectOtherArities() throws Exception {
+        underTest.execute("a", "html", "b");
+    }
+}
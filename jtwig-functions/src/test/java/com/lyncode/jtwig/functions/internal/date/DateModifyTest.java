@@ -16,10 +16,13 @@
 
 package com.lyncode.jtwig.functions.internal.date;
 
+import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import org.junit.Test;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
 public class DateModifyTest {
@@ -30,4 +33,17 @@ public class DateModifyTest {
         Date date = new Date();
         assertNotEquals(date, underTest.execute(date, "+1 day"));
     }
+
+    @Test
+    public void testSameModifierTwice() throws Exception {
+        Date date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2011-01-31 00:00:00");
+        Date expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2011-02-01 00:00:00");
+        assertEquals(expected, underTest.execute(date, "+1 day"));
+        assertEquals(expected, underTest.execute(date, " +1 day "));
+    }
+
+    @Test(expected = FunctionException.class)
+    public void testInvalidModifier() throws Exception {
+        underTest.execute(new Date(), "tomorrow");
+    }
 }
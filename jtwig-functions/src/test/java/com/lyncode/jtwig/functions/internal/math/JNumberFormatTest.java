@@ -19,6 +19,14 @@ package com.lyncode.jtwig.functions.internal.math;
 import com.lyncode.jtwig.functions.exceptions.FunctionException;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertEquals;
 
 public class JNumberFormatTest {
@@ -28,4 +36,39 @@ public class JNumberFormatTest {
     public void testExecute() throws FunctionException {
         assertEquals("1,234.57", underTest.execute(1234.5678, 2, ".", ","));
     }
+
+    @Test
+    public void shouldNotShareCachedFormatsBetweenSeparators() throws FunctionException {
+        assertEquals("1.234,57", underTest.execute(1234.5678, 2, ",", "."));
+        assertEquals("1,234.57", underTest.execute(1234.5678, 2, ".", ","));
+        assertEquals("1 234.6", underTest.execute(1234.5678, 1, ".", " "));
+    }
+
+    @Test
+    public void shouldFormatConcurrentlyWithTheSameFormat() throws Exception {
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final double number = i * 1000.25;
+            calls.add(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return underTest.execute(number, 2, ".", ",");
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = executor.invokeAll(calls);
+            for (int i = 0; i < results.size(); i++)
+                assertEquals(String.format(Locale.US, "%,.2f", i * 1000.25), results.get(i).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = FunctionException.class)
+    public void shouldRequireIntegerDigits() throws FunctionException {
+        underTest.execute(1234.5678, "2");
+    }
 }
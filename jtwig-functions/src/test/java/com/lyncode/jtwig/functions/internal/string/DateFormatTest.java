@@ -20,6 +20,7 @@ import com.lyncode.jtwig.functions.internal.date.DateFormat;
 import org.junit.Test;
 
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
@@ -39,4 +40,18 @@ public class DateFormatTest {
         String result = (String) underTest.execute(date, "yyyy");
         assertEquals("2011", result);
     }
+
+    @Test
+    public void testExecuteWithLocale() throws Exception {
+        Date date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2011-01-01 00:00:00");
+        String result = (String) underTest.execute(date, "MMMM", "pt_PT");
+        assertEquals("Janeiro", result.substring(0, 1).toUpperCase() + result.substring(1));
+    }
+
+    @Test
+    public void testExecuteWithCalendar() throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2011-01-01 00:00:00"));
+        assertEquals("2011-01-01 00:00:00", underTest.execute(calendar));
+    }
 }
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions.repository;
+
+import com.lyncode.jtwig.functions.JtwigFunction;
+import com.lyncode.jtwig.functions.exceptions.FunctionException;
+import com.lyncode.jtwig.functions.internal.string.Upper;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FunctionRepositoryTest {
+    private JtwigFunction function = new JtwigFunction() {
+        @Override
+        public Object execute(Object... arguments) throws FunctionException {
+            return "custom";
+        }
+    };
+
+    @Test
+    public void shouldShareBuiltInFunctions() {
+        assertThat(new DefaultFunctionRepository().find("upper"), instanceOf(Upper.class));
+        assertThat(new DefaultFunctionRepository().find("upper"), sameInstance(new DefaultFunctionRepository().find("upper")));
+        assertThat(new DefaultFunctionRepository().find("unknown"), nullValue());
+    }
+
+    @Test
+    public void shouldShadowBuiltInFunctions() {
+        assertThat(new DefaultFunctionRepository().find("upper"), not(sameInstance(function)));
+
+        DefaultFunctionRepository repository = new DefaultFunctionRepository();
+        repository.add(function, "upper");
+        assertThat(repository.find("upper"), sameInstance(function));
+    }
+
+    @Test
+    public void overlayShouldNotChangeItsParent() {
+        AbstractFunctionRepository parent = new DefaultFunctionRepository().freeze();
+        OverlayFunctionRepository overlay = new OverlayFunctionRepository(parent);
+        overlay.add(function, "custom");
+
+        assertThat(overlay.find("custom"), sameInstance(function));
+        assertThat(overlay.find("upper"), instanceOf(Upper.class));
+        assertThat(parent.find("custom"), nullValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void frozenRepositoryShouldRejectFunctions() {
+        new DefaultFunctionRepository().freeze().add(function, "custom");
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.functions.util;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EscaperTest {
+    private static final String[] SAMPLES = {
+            "",
+            "plain text",
+            "<a href=\"x\">Tom & 'Jerry'</a>",
+            "café α≤β ♦",
+            "line\nbreak\ttab\u0001/\\",
+    };
+
+    @Test
+    public void shouldMatchCommonsLang() throws Exception {
+        for (String sample : SAMPLES) {
+            assertThat(Escaper.HTML.escape(sample), is(StringEscapeUtils.escapeHtml4(sample)));
+            assertThat(Escaper.XML.escape(sample), is(StringEscapeUtils.escapeXml(sample)));
+            assertThat(Escaper.JAVASCRIPT.escape(sample), is(StringEscapeUtils.escapeEcmaScript(sample)));
+        }
+    }
+
+    @Test
+    public void shouldReturnCleanInputUnchanged() throws Exception {
+        String input = "nothing to escape";
+
+        assertThat(Escaper.HTML.escape(input), sameInstance(input));
+    }
+
+    @Test
+    public void shouldAppendToTheOutput() throws Exception {
+        StringBuilder output = new StringBuilder("x");
+
+        Escaper.HTML.escape("a<b", output);
+
+        assertThat(output.toString(), is("xa&lt;b"));
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.jtwig.maven;
+
+import com.lyncode.jtwig.compile.CompileContext;
+import com.lyncode.jtwig.compile.ContentOptimizer;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.exception.CompileException;
+import com.lyncode.jtwig.exception.ParseException;
+import com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy;
+import com.lyncode.jtwig.parser.JtwigParser;
+import com.lyncode.jtwig.precompile.PrecompiledTemplates;
+import com.lyncode.jtwig.precompile.TemplateSourceWriter;
+import com.lyncode.jtwig.resource.FileJtwigResource;
+import com.lyncode.jtwig.tree.api.Content;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Parses and compiles every template of a directory, failing the build on
+ * errors, and generates a precompiled class for each one together with the
+ * index used at runtime to find them.
+ *
+ * Templates are compiled without binding functions, function calls are bound
+ * to the runtime configuration repository when the precompiled tree is loaded.
+ *
+ * @goal precompile
+ * @phase generate-sources
+ * @requiresDependencyResolution compile
+ */
+public class PrecompileMojo extends AbstractMojo {
+    /**
+     * Directory with the templates.
+     *
+     * @parameter default-value="${basedir}/src/main/webapp"
+     */
+    private File templateDirectory;
+
+    /**
+     * Prefix of the template paths used at runtime, relative to the template directory.
+     *
+     * @parameter default-value=""
+     */
+    private String pathPrefix;
+
+    /**
+     * File name endings of the templates to precompile, by default .twig and .twig.html.
+     *
+     * @parameter
+     */
+    private String[] suffixes;
+
+    /**
+     * Package of the generated classes.
+     *
+     * @parameter default-value="com.lyncode.jtwig.precompiled"
+     */
+    private String packageName;
+
+    /**
+     * Encoding of the template files, the platform encoding if not set.
+     *
+     * @parameter default-value="${project.build.sourceEncoding}"
+     */
+    private String sourceEncoding;
+
+    /**
+     * Escaping strategy applied to every output, such as html, js or xml. It
+     * must match the runtime configuration for the precompiled templates to be used.
+     *
+     * @parameter
+     */
+    private String autoescape;
+
+    /**
+     * @parameter default-value="${project.build.directory}/generated-sources/jtwig"
+     */
+    private File sourceOutputDirectory;
+
+    /**
+     * @parameter default-value="${project.build.directory}/generated-resources/jtwig"
+     */
+    private File resourceOutputDirectory;
+
+    /**
+     * @parameter default-value="${project}"
+     * @required
+     * @readonly
+     */
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!templateDirectory.isDirectory()) {
+            getLog().info("No templates to precompile in " + templateDirectory);
+            return;
+        }
+        if (suffixes == null || suffixes.length == 0)
+            suffixes = new String[]{".twig", ".twig.html"};
+
+        File packageDirectory = new File(sourceOutputDirectory, packageName.replace('.', File.separatorChar));
+        packageDirectory.mkdirs();
+
+        Properties index = new Properties();
+        Set<String> classNames = new HashSet<>();
+        for (String path : templates(templateDirectory, "")) {
+            String className = className(path, classNames);
+            write(new File(packageDirectory, className + ".java"), source(path, className));
+            index.setProperty(PrecompiledTemplates.normalize(pathPrefix + path), qualified(className));
+        }
+        writeIndex(index);
+
+        project.addCompileSourceRoot(sourceOutputDirectory.getPath());
+        Resource resource = new Resource();
+        resource.setDirectory(resourceOutputDirectory.getPath());
+        project.addResource(resource);
+        getLog().info("Precompiled " + index.size() + " templates from " + templateDirectory);
+    }
+
+    private String source(String path, String className) throws MojoFailureException {
+        FileJtwigResource resource = new FileJtwigResource(new File(templateDirectory, path));
+        JtwigConfiguration configuration = new JtwigConfiguration();
+        if (sourceEncoding != null && !sourceEncoding.isEmpty())
+            configuration.setSourceCharset(Charset.forName(sourceEncoding));
+        if (autoescape != null && !autoescape.isEmpty()) {
+            EscapeStrategy strategy = EscapeStrategy.strategyByName(autoescape.toLowerCase());
+            if (strategy == null)
+                throw new MojoFailureException("Unknown escaping strategy " + autoescape);
+            configuration.setAutoescape(strategy);
+        }
+        try {
+            Content content = JtwigParser.parse(resource, configuration.getSourceCharset())
+                    .compile(new CompileContext(resource, configuration));
+            content = new ContentOptimizer(configuration.getOutputCharset()).optimize(content);
+            return new TemplateSourceWriter().write(packageName, className, content, configuration);
+        } catch (ParseException | CompileException e) {
+            throw new MojoFailureException("Unable to compile template " + path + ": " + e.getMessage());
+        }
+    }
+
+    private List<String> templates(File directory, String path) {
+        List<String> result = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) return result;
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory())
+                result.addAll(templates(file, path + file.getName() + "/"));
+            else if (isTemplate(file.getName()))
+                result.add(path + file.getName());
+        }
+        return result;
+    }
+
+    private boolean isTemplate(String name) {
+        for (String suffix : suffixes)
+            if (name.endsWith(suffix))
+                return true;
+        return false;
+    }
+
+    private String className(String path, Set<String> classNames) {
+        String base = "Template_" + path.replaceAll("[^A-Za-z0-9]", "_");
+        String className = base;
+        for (int i = 2; !classNames.add(className); i++)
+            className = base + "_" + i;
+        return className;
+    }
+
+    private String qualified(String className) {
+        return packageName.isEmpty() ? className : packageName + "." + className;
+    }
+
+    private void writeIndex(Properties index) throws MojoExecutionException {
+        File file = new File(resourceOutputDirectory, PrecompiledTemplates.INDEX);
+        file.getParentFile().mkdirs();
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            index.store(outputStream, "Jtwig precompiled templates");
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write " + file, e);
+        }
+    }
+
+    private void write(File file, String content) throws MojoExecutionException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write(content);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write " + file, e);
+        }
+    }
+}
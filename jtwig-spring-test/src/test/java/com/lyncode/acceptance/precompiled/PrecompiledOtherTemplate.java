@@ -0,0 +1,41 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.acceptance.precompiled;
+
+import com.lyncode.jtwig.precompile.PrecompiledTemplate;
+import com.lyncode.jtwig.tree.api.Content;
+import com.lyncode.jtwig.tree.content.JtwigContent;
+import com.lyncode.jtwig.tree.content.Output;
+import com.lyncode.jtwig.tree.expressions.Constant;
+import com.lyncode.jtwig.tree.expressions.FunctionElement;
+
+/**
+ * What the precompile goal generates for {@code {{ other('precompiled') }}}.
+ */
+public final class PrecompiledOtherTemplate implements PrecompiledTemplate {
+    @Override
+    public Content content() {
+        FunctionElement function = new FunctionElement("other");
+        function.add(new Constant<>("precompiled"));
+        return new JtwigContent().add(new Output(function));
+    }
+
+    @Override
+    public String settings() {
+        return "autoescape=none";
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2012 Lyncode
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lyncode.acceptance.precompiled;
+
+import com.lyncode.acceptance.AbstractViewTest;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
+import com.lyncode.jtwig.mvc.JtwigViewResolver;
+import com.lyncode.jtwig.precompile.PrecompiledTemplates;
+import com.lyncode.jtwig.services.api.ModelMapFiller;
+import org.hamcrest.Matcher;
+import org.junit.After;
+import org.junit.Before;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.ViewResolver;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+public class PrecompiledViewTest extends AbstractViewTest {
+    @Autowired
+    private ViewResolver viewResolver;
+
+    @Before
+    public void usePrecompiledTemplate() {
+        configuration().setPrecompiledTemplates(new PrecompiledTemplates(Collections.singletonMap(
+                "WEB-INF/views/default/other/test.twig.html", PrecompiledOtherTemplate.class.getName()), getClass().getClassLoader()));
+    }
+
+    @After
+    public void restore() {
+        configuration().setPrecompiledTemplates(PrecompiledTemplates.none());
+    }
+
+    @Override
+    protected void given(ModelMapFiller modelMap) {
+        // Nothing
+    }
+
+    @Override
+    protected String forView() {
+        return "other/test";
+    }
+
+    @Override
+    protected Matcher<? super String> contentMatcher() {
+        return equalTo("precompiled");
+    }
+
+    private JtwigConfiguration configuration() {
+        return ((JtwigViewResolver) viewResolver).getConfiguration();
+    }
+}
@@ -21,6 +21,8 @@ import com.lyncode.jtwig.JtwigModelMap;
 import com.lyncode.jtwig.JtwigTemplate;
 import com.lyncode.jtwig.exception.CompileException;
 import com.lyncode.jtwig.exception.ParseException;
+import com.lyncode.jtwig.render.OutputStreamRenderStream;
+import com.lyncode.jtwig.render.RenderStream;
 import com.lyncode.jtwig.resource.WebJtwigResource;
 import com.lyncode.jtwig.tree.api.Content;
 import org.apache.log4j.LogManager;
@@ -32,16 +34,14 @@ import org.springframework.web.servlet.view.AbstractTemplateView;
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Map;
 
 public class JtwigView extends AbstractTemplateView {
     private static Logger log = LogManager.getLogger(JtwigView.class);
 
-    private Map<String, Content> compiledTemplates = new HashMap<>();
-
     protected String getEncoding() {
         return getViewResolver().getEncoding();
     }
@@ -85,21 +85,15 @@ public class JtwigView extends AbstractTemplateView {
         if (this.getEncoding() != null)
             response.setCharacterEncoding(this.getEncoding());
 
-        getContent(request).render(response.getOutputStream(), new JtwigContext(modelMap, getViewResolver().getFunctionRepository()));
+        RenderStream renderStream = new OutputStreamRenderStream(response.getOutputStream(), Charset.forName(response.getCharacterEncoding()));
+        getContent(request).render(renderStream, new JtwigContext(modelMap, getViewResolver().getFunctionRepository())
+                .withPropertyResolvers(getViewResolver().getPropertyResolvers())
+                .withGlobals(getViewResolver().getGlobals()));
+        renderStream.flush();
     }
 
     public Content getContent(HttpServletRequest request) throws CompileException, ParseException {
-        if (getViewResolver().isCached()) {
-            if (!compiledTemplates.containsKey(getUrl())) {
-                compiledTemplates.put(getUrl(), getCompiledJtwigTemplate(request));
-            }
-            return compiledTemplates.get(getUrl());
-        }
-        return getCompiledJtwigTemplate(request);
-    }
-
-    private Content getCompiledJtwigTemplate(HttpServletRequest request) throws ParseException, CompileException {
-        return new JtwigTemplate(new WebJtwigResource(request.getSession().getServletContext(), getUrl())).compile();
+        return new JtwigTemplate(new WebJtwigResource(request.getSession().getServletContext(), getUrl()), getViewResolver().getConfiguration()).compile();
     }
 
     @SuppressWarnings("serial")
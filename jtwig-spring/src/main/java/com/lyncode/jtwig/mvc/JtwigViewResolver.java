@@ -16,19 +16,24 @@
 
 package com.lyncode.jtwig.mvc;
 
+import com.lyncode.jtwig.cache.CompiledTemplateCache;
+import com.lyncode.jtwig.configuration.JtwigConfiguration;
 import com.lyncode.jtwig.functions.JtwigFunction;
 import com.lyncode.jtwig.functions.builders.FunctionRepositoryBuilder;
+import com.lyncode.jtwig.functions.internal.string.Escape.EscapeStrategy;
 import com.lyncode.jtwig.functions.repository.AbstractFunctionRepository;
 import com.lyncode.jtwig.functions.repository.WebFunctionRepository;
+import com.lyncode.jtwig.precompile.PrecompiledTemplates;
+import com.lyncode.jtwig.property.PropertyResolvers;
 import com.lyncode.jtwig.services.api.theme.ThemePrefixResolver;
 import org.reflections.Reflections;
 import org.springframework.web.servlet.view.AbstractTemplateViewResolver;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.nio.charset.Charset;
+import java.util.*;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class JtwigViewResolver extends AbstractTemplateViewResolver {
@@ -46,10 +51,17 @@ public class JtwigViewResolver extends AbstractTemplateViewResolver {
     private boolean cached;
     private ThemePrefixResolver prefixResolver;
     private AbstractFunctionRepository functionRepository = new WebFunctionRepository();
+    private PropertyResolvers propertyResolvers = PropertyResolvers.defaults();
+    private Map<String, Object> globals = Collections.emptyMap();
     private List<String> loadedFunctions = new ArrayList<>();
+    private JtwigConfiguration configuration = new JtwigConfiguration();
 
     public JtwigViewResolver() {
         this.prefixResolver = defaultPrefixResolver();
+        this.configuration.setTemplateCache(CompiledTemplateCache.noCache());
+        this.configuration.setPrecompiledTemplates(PrecompiledTemplates.none());
+        this.configuration.setOutputCharset(Charset.forName("UTF-8"));
+        this.configuration.setFunctionRepository(functionRepository);
         setViewClass(requiredViewClass());
         setContentType("text/html; charset=UTF-8");
     }
@@ -86,39 +98,115 @@ public class JtwigViewResolver extends AbstractTemplateViewResolver {
         return isNotBlank(theme);
     }
 
+    /**
+     * Cached resolvers also use the templates precompiled at build time,
+     * uncached ones always parse the templates so changes are picked up.
+     */
     public void setCached(boolean cached) {
         this.cached = cached;
+        if (cached) {
+            configuration.setTemplateCache(new CompiledTemplateCache(CompiledTemplateCache.DEFAULT_MAXIMUM_SIZE));
+            configuration.setPrecompiledTemplates(PrecompiledTemplates.fromClassLoader(JtwigViewResolver.class.getClassLoader()));
+        } else {
+            configuration.setTemplateCache(CompiledTemplateCache.noCache());
+            configuration.setPrecompiledTemplates(PrecompiledTemplates.none());
+        }
+    }
+
+    public long getTemplateRefreshInterval() {
+        return configuration.getTemplateRefreshInterval();
+    }
+
+    public void setTemplateRefreshInterval(long templateRefreshInterval) {
+        configuration.setTemplateRefreshInterval(templateRefreshInterval);
     }
 
     public void setTheme(String theme) {
         this.theme = theme;
     }
 
+    public JtwigConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public boolean isBytecodeCompilation() {
+        return configuration.isBytecodeCompilation();
+    }
+
+    public void setBytecodeCompilation(boolean bytecodeCompilation) {
+        configuration.setBytecodeCompilation(bytecodeCompilation);
+    }
+
     public String getEncoding() {
         return encoding;
     }
 
+    /**
+     * Response encoding, static template text is also pre-encoded with it.
+     */
     public void setEncoding(String encoding) {
         this.encoding = encoding;
+        if (encoding != null)
+            configuration.setOutputCharset(Charset.forName(encoding));
+    }
+
+    public void setSourceEncoding(String sourceEncoding) {
+        configuration.setSourceCharset(Charset.forName(sourceEncoding));
+    }
+
+    /**
+     * Escaping strategy applied to every output, such as html, js or xml.
+     * Blank disables autoescaping.
+     */
+    public void setAutoescape(String strategy) {
+        if (isBlank(strategy)) {
+            configuration.setAutoescape(null);
+            return;
+        }
+        EscapeStrategy escapeStrategy = EscapeStrategy.strategyByName(strategy.toLowerCase());
+        if (escapeStrategy == null)
+            throw new IllegalArgumentException("Unknown escaping strategy " + strategy);
+        configuration.setAutoescape(escapeStrategy);
     }
 
     public void setFunctionRepository(AbstractFunctionRepository abstractFunctionRepository) {
         this.functionRepository = abstractFunctionRepository;
+        configuration.setFunctionRepository(abstractFunctionRepository);
     }
     public void setFunctionRepository(FunctionRepositoryBuilder functionRepository) {
-        this.functionRepository = functionRepository.build();
+        setFunctionRepository(functionRepository.build());
     }
 
     public AbstractFunctionRepository getFunctionRepository() {
         return functionRepository;
     }
 
+    public PropertyResolvers getPropertyResolvers() {
+        return propertyResolvers;
+    }
+
+    public void setPropertyResolvers(PropertyResolvers propertyResolvers) {
+        this.propertyResolvers = propertyResolvers;
+    }
+
+    public Map<String, Object> getGlobals() {
+        return globals;
+    }
+
+    /**
+     * Variables available to every view, shared by all renders.
+     */
+    public void setGlobals(Map<String, Object> globals) {
+        this.globals = Collections.unmodifiableMap(new HashMap<>(globals));
+    }
+
     public void addFunctions (Class<? extends JtwigFunction>... functionClasses) {
         for (Class<? extends JtwigFunction> functionClass : functionClasses) {
             try {
                 if (!loadedFunctions.contains(functionClass.getName())) {
                     functionRepository.add(functionClass.newInstance());
                     loadedFunctions.add(functionClass.getName());
+                    configuration.getTemplateCache().invalidateAll();
                 }
             } catch (InstantiationException e) {
                 throw new RuntimeException("Unable to create instance of jtwig function "+functionClass.getName());
@@ -22,7 +22,7 @@ import javax.servlet.ServletContext;
 import java.io.File;
 import java.io.InputStream;
 
-public class WebJtwigResource implements JtwigResource {
+public class WebJtwigResource implements PathJtwigResource {
     private ServletContext servletContext;
     private String url;
 
@@ -31,6 +31,11 @@ public class WebJtwigResource implements JtwigResource {
         this.url = url;
     }
 
+    @Override
+    public String getPath() {
+        return url;
+    }
+
     @Override
     public InputStream retrieve() throws ResourceException {
         InputStream resourceAsStream = servletContext.getResourceAsStream(url);
@@ -43,4 +48,22 @@ public class WebJtwigResource implements JtwigResource {
         String relativeUrl = new File(new File(url).getParent(), relativePath).getPath();
         return new WebJtwigResource(servletContext, relativeUrl);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WebJtwigResource that = (WebJtwigResource) o;
+        return servletContext == that.servletContext && url.equals(that.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(servletContext) + url.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
 }